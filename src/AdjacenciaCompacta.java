@@ -0,0 +1,180 @@
+/*
+ *  Copyright 2023 Henrique Almeida
+ * 
+ * This file is part of Projeto grafos.
+ * 
+ * Projeto grafos is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * Projeto grafos is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ * 
+ * You should have received a copy of the GNU
+ * General Public License along with Projeto grafos. If not, see
+ * <https://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Cópia imutável da adjacência de um grafo em vetores primitivos (formato CSR).
+ * <br><br>
+ * Os vértices são renumerados de <code>0</code> a <code>n - 1</code> na ordem
+ * crescente dos identificadores, e os vizinhos de cada vértice ficam ordenados
+ * pelo índice, aproveitando a ordem do {@link java.util.TreeMap} de
+ * {@link Vertice}. Os vizinhos do vértice <code>v</code> ocupam as posições
+ * <code>[inicio[v], inicio[v + 1])</code> de <code>destinos</code>.
+ * 
+ * @see Grafo
+ * @author henrish0
+ */
+public class AdjacenciaCompacta {
+    /** Identificador de cada índice, em ordem crescente. */
+    private final int[] IDS;
+
+    /** Posição inicial dos vizinhos de cada vértice, com <code>n + 1</code> posições. */
+    private final int[] INICIO;
+
+    /** Índices dos vizinhos, ordenados dentro de cada vértice. */
+    private final int[] DESTINOS;
+
+    /** Pesos das arestas, <code>null</code> se o grafo não é ponderado. */
+    private final int[] PESOS;
+
+    /**
+     * Construtor padrão. Copia as arestas do grafo em paralelo.
+     * 
+     * @param grafo Grafo de origem.
+     */
+    public AdjacenciaCompacta(Grafo grafo) {
+        this.IDS = grafo.getVertices().stream().mapToInt(Vertice::getID).sorted().toArray();
+        int n = this.IDS.length;
+        this.INICIO = new int[n + 1];
+        for (int v = 0; v < n; v++)
+            this.INICIO[v + 1] = this.INICIO[v] + grafo.getVertice(this.IDS[v]).getArestas().size();
+        this.DESTINOS = new int[this.INICIO[n]];
+        this.PESOS = grafo.ePonderado() ? new int[this.INICIO[n]] : null;
+        IntStream.range(0, n).parallel().forEach(v -> {
+            int i = this.INICIO[v];
+            for (IAresta a : grafo.getVertice(this.IDS[v]).getArestas()) {
+                this.DESTINOS[i] = this.indice(a.getDestino().getID());
+                if (this.PESOS != null)
+                    this.PESOS[i] = a.getPeso();
+                i++;
+            }
+        });
+    }
+
+    /**
+     * Construtor a partir de vetores já montados.
+     * 
+     * @param ids      Identificadores em ordem crescente.
+     * @param inicio   Posição inicial dos vizinhos de cada vértice.
+     * @param destinos Índices dos vizinhos.
+     * @param pesos    Pesos das arestas, ou <code>null</code>.
+     */
+    private AdjacenciaCompacta(int[] ids, int[] inicio, int[] destinos, int[] pesos) {
+        this.IDS = ids;
+        this.INICIO = inicio;
+        this.DESTINOS = destinos;
+        this.PESOS = pesos;
+    }
+
+    /**
+     * Retorna a versão não direcionada desta adjacência: cada aresta
+     * <code>u-v</code> passa a existir nos dois sentidos, sem repetições. Os pesos
+     * são descartados.
+     * 
+     * @return Adjacência simétrica.
+     */
+    public AdjacenciaCompacta simetrica() {
+        int n = this.IDS.length;
+        int[] grau = new int[n + 1];
+        for (int v = 0; v < n; v++)
+            for (int i = this.INICIO[v]; i < this.INICIO[v + 1]; i++) {
+                grau[v]++;
+                grau[this.DESTINOS[i]]++;
+            }
+        int[] inicio = new int[n + 1];
+        for (int v = 0; v < n; v++)
+            inicio[v + 1] = inicio[v] + grau[v];
+        int[] destinos = new int[inicio[n]], pos = Arrays.copyOf(inicio, n);
+        for (int v = 0; v < n; v++)
+            for (int i = this.INICIO[v]; i < this.INICIO[v + 1]; i++) {
+                destinos[pos[v]++] = this.DESTINOS[i];
+                destinos[pos[this.DESTINOS[i]]++] = v;
+            }
+        // Ordena e remove repetições de cada vértice, compactando o vetor
+        IntStream.range(0, n).parallel().forEach(v -> {
+            Arrays.sort(destinos, inicio[v], inicio[v + 1]);
+            int k = inicio[v];
+            for (int i = inicio[v]; i < inicio[v + 1]; i++)
+                if (i == inicio[v] || destinos[i] != destinos[i - 1])
+                    destinos[k++] = destinos[i];
+            grau[v] = k - inicio[v];
+        });
+        int[] novoInicio = new int[n + 1];
+        for (int v = 0; v < n; v++)
+            novoInicio[v + 1] = novoInicio[v] + grau[v];
+        int[] novosDestinos = new int[novoInicio[n]];
+        for (int v = 0; v < n; v++)
+            System.arraycopy(destinos, inicio[v], novosDestinos, novoInicio[v], grau[v]);
+        return new AdjacenciaCompacta(this.IDS, novoInicio, novosDestinos, null);
+    }
+
+    /**
+     * Retorna o índice de um identificador.
+     * 
+     * @param id Identificador do vértice.
+     * @return Índice do vértice, negativo se não existir.
+     */
+    public int indice(int id) {
+        return Arrays.binarySearch(this.IDS, id);
+    }
+
+    /**
+     * Verifica se existe a aresta <code>u-v</code> por busca binária.
+     * 
+     * @param u Índice do vértice de origem.
+     * @param v Índice do vértice de destino.
+     * @return <code>true</code> se a aresta existe, <code>false</code> caso
+     *         contrário.
+     */
+    public boolean haAresta(int u, int v) {
+        return Arrays.binarySearch(this.DESTINOS, this.INICIO[u], this.INICIO[u + 1], v) >= 0;
+    }
+
+    // @formatter:off
+    /** getN
+     * @return Número de vértices. */
+    public int getN() { return this.IDS.length; }
+    /** getM
+     * @return Número de arestas armazenadas. */
+    public int getM() { return this.DESTINOS.length; }
+    /** getID
+     * @param v Índice do vértice.
+     * @return Identificador do vértice. */
+    public int getID(int v) { return this.IDS[v]; }
+    /** getGrau
+     * @param v Índice do vértice.
+     * @return Número de vizinhos do vértice. */
+    public int getGrau(int v) { return this.INICIO[v + 1] - this.INICIO[v]; }
+    /** getIds
+     * @return Identificadores de cada índice, sem cópia. */
+    public int[] getIds() { return this.IDS; }
+    /** getInicio
+     * @return Posição inicial dos vizinhos de cada vértice, sem cópia. */
+    public int[] getInicio() { return this.INICIO; }
+    /** getDestinos
+     * @return Índices dos vizinhos, sem cópia. */
+    public int[] getDestinos() { return this.DESTINOS; }
+    /** getPesos
+     * @return Pesos das arestas sem cópia, <code>null</code> se o grafo não é ponderado. */
+    public int[] getPesos() { return this.PESOS; }
+
+}
@@ -18,6 +18,15 @@
  * <https://www.gnu.org/licenses/>.
 */
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+
 /**
  * Classe principal do programa.
  * 
@@ -27,22 +36,50 @@ public class App {
     /** Grafo que será utilizado no programa */
     private static Grafo grafo;
 
+    /** Leitor da entrada padrão, usado quando não há console disponível */
+    private static BufferedReader entrada;
+
     /** Construtor para garantir classe não instanciável */
     private App() {
         throw new InstantiationError("Classe nao instanciavel");
     }
 
     /**
-     * Método que lê uma string do console através do {@link System#console()}.
+     * Método que lê uma string do console através do {@link System#console()},
+     * ou da entrada padrão quando não há console.
      * 
      * @param mensagem a ser exibida ao usuário.
      * @return string lida do console.
+     * @throws NoSuchElementException se a entrada padrão foi encerrada.
      */
     public static String lerStr(String mensagem) {
-        String out = System.console().readLine(mensagem);
+        String out = App.lerLinha(mensagem);
         return out == null || out.isBlank() ? App.lerStr(" ERRO: Valor invalido. Digite novamente: ") : out.trim();
     }
 
+    /**
+     * Método que lê uma linha do console, ou da entrada padrão quando não há
+     * console.
+     * 
+     * @param mensagem a ser exibida ao usuário.
+     * @return linha lida, pode ser <code>null</code> no console.
+     * @throws NoSuchElementException se a entrada padrão foi encerrada.
+     */
+    private static String lerLinha(String mensagem) {
+        if (System.console() != null)
+            return System.console().readLine(mensagem);
+        System.out.print(mensagem);
+        System.out.flush();
+        try {
+            if (entrada == null)
+                entrada = new BufferedReader(new InputStreamReader(System.in));
+            String out = entrada.readLine();
+            if (out != null)
+                return out;
+        } catch (IOException e) {}
+        throw new NoSuchElementException("Entrada encerrada");
+    }
+
     /**
      * Método que lê um inteiro do console.
      * 
@@ -61,7 +98,7 @@ public class App {
      * Método que pause a execução do programa até que o usuário pressione ENTER.
      */
     public static void pause() {
-        System.console().readLine("\n Pressione ENTER para continuar...");
+        App.lerLinha("\n Pressione ENTER para continuar...");
     }
 
     /**
@@ -84,6 +121,77 @@ public class App {
         System.out.println(" Grafo criado com sucesso!");
     }
 
+    /**
+     * Menu para exportação do grafo em outros formatos.
+     */
+    private static void menuExportacao() {
+        EscritorGrafo.Formato formato = switch (App.lerInt(" Formato (1 - Lista de arestas, 2 - DIMACS, 3 - GraphML): ")) {
+            case 1 -> EscritorGrafo.Formato.LISTA_ARESTAS;
+            case 2 -> EscritorGrafo.Formato.DIMACS;
+            case 3 -> EscritorGrafo.Formato.GRAPHML;
+            default -> null;
+        };
+        if (formato == null) {
+            System.out.println(" Erro, formato invalido");
+            return;
+        }
+        System.out.println(grafo.exportar(App.lerStr(" Digite o caminho do arquivo: "), formato)
+                ? " Grafo exportado com sucesso"
+                : " Erro ao escrever arquivo");
+    }
+
+    /**
+     * Menu para particionar o grafo e salvar os fragmentos.
+     */
+    private static void menuParticao() {
+        Particionador p = new Particionador(grafo, App.lerInt(" Digite o numero de fragmentos: "));
+        int[] particao = App.lerStr(" Minimizar arestas de fronteira por propagacao de rotulos? (S/N) ")
+                .equalsIgnoreCase("S") ? p.propagacaoRotulos(20) : p.porHash();
+        System.out.println(p.salvar(particao, Path.of(App.lerStr(" Digite a pasta de destino: ")))
+                ? " Grafo particionado com " + p.arestasCortadas(particao) + " arestas de fronteira"
+                : " Erro ao escrever arquivos");
+    }
+
+    /**
+     * Menu para busca em largura e componentes conexos sobre os fragmentos salvos
+     * pela opção 13, com um processo trabalhador por fragmento.
+     */
+    private static void menuShards() {
+        try (CoordenadorShards c = new CoordenadorShards(Path.of(App.lerStr(" Digite a pasta dos fragmentos: ")),
+                App.lerStr(" Digite o nome do grafo: "))) {
+            if (App.lerStr(" Buscar em largura (S) ou rotular componentes (N)? ").equalsIgnoreCase("S")) {
+                HashMap<Integer, Integer> dist = c.bfs(App.lerInt(" Digite o id do vertice de origem: "));
+                System.out.println(dist == null ? " Erro, vertice nao existe" : " Distancias: " + dist);
+            } else {
+                HashMap<Integer, Integer> rotulos = c.componentes();
+                System.out.println(rotulos == null ? " Erro, grafo direcionado"
+                        : " Componentes conexos: " + new HashSet<Integer>(rotulos.values()).size()
+                                + "\n Rotulos: " + rotulos);
+            }
+        } catch (IOException e) {
+            System.out.println(" Erro ao executar os fragmentos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Menu para ordenação topológica e caminho crítico do grafo.
+     */
+    private static void menuTopologica() {
+        if (!grafo.eDirecionado()) {
+            System.out.println(" Erro, grafo nao direcionado");
+            return;
+        }
+        OrdenacaoTopologica t = new OrdenacaoTopologica(grafo);
+        if (t.temCiclo()) {
+            System.out.println(" O grafo tem ciclo: " + Arrays.toString(t.ciclo()));
+            return;
+        }
+        int[] critico = t.caminhoCritico();
+        System.out.println(" Ordem topologica: " + Arrays.toString(t.ordenar())
+                + "\n Niveis: " + t.niveis().length
+                + "\n Caminho critico: " + Arrays.toString(critico) + ", comprimento " + t.comprimento(critico));
+    }
+
     /**
      * Menu principal do programa.
      * 
@@ -100,6 +208,13 @@ public class App {
                 + " 7 - Remover uma aresta\n"
                 + " 8 - Verificar se o grafo é completo\n"
                 + " 9 - Imprimir grafo\n"
+                + " 10 - Exportar o grafo\n"
+                + " 11 - Carregar um grafo fragmentado\n"
+                + " 12 - Contar triangulos\n"
+                + " 13 - Particionar o grafo\n"
+                + " 14 - Verificar se dois vertices estao conectados\n"
+                + " 15 - Ordenacao topologica e caminho critico\n"
+                + " 16 - Buscar em um grafo particionado (um processo por fragmento)\n"
                 + " 0 - Sair\n " //
         );
     }
@@ -140,8 +255,33 @@ public class App {
                             ? " O grafo é completo"
                             : " O grafo não é completo" //
                 );
-            case 9 -> System.out.println(
-                    grafo == null ? " Grafo nao criado" : grafo);
+            case 9 -> {
+                if (grafo == null)
+                    System.out.println(" Grafo nao criado");
+                else
+                    grafo.imprimir(System.out);
+            }
+            case 10 -> App.menuExportacao();
+            case 11 -> System.out.println((grafo = Grafo.carregar(App.lerStr(" Digite o nome do grafo: "),
+                    Arrays.stream(App.lerStr(" Digite os arquivos ou diretorios, separados por espaco: ").split("\\s+"))
+                            .map(Path::of).toArray(Path[]::new))) != null
+                                    ? " Grafo carregado com sucesso"
+                                    : " Erro ao ler arquivos");
+            case 12 -> {
+                Triangulos t = new Triangulos(grafo);
+                System.out.println(" Triangulos: " + t.contar()
+                        + "\n Coeficiente de agrupamento medio: " + t.coeficienteMedio());
+            }
+            case 13 -> App.menuParticao();
+            case 14 -> System.out.println(
+                    (grafo.conectados(App.lerInt(" Digite o id do primeiro vertice: "),
+                            App.lerInt(" Digite o id do segundo vertice: "))
+                                    ? " Os vertices estao conectados"
+                                    : " Os vertices nao estao conectados")
+                            + "\n Componentes conexos: " + grafo.numeroComponentes() //
+                );
+            case 15 -> App.menuTopologica();
+            case 16 -> App.menuShards();
             case 0 -> {
                 if (grafo != null && App.lerStr(" Deseja salvar o grafo? (S/N) ").equalsIgnoreCase("S"))
                     grafo.salvar();
@@ -154,12 +294,23 @@ public class App {
     }
 
     /**
-     * Método principal do programa.
+     * Método principal do programa. Com roteiros nos argumentos (ou
+     * <code>-</code> para a entrada padrão) executa os comandos em lote com
+     * {@link ExecutorLote} e termina com status 1 se algum comando falhou. Sem
+     * argumentos abre o menu interativo, que lê da entrada padrão quando não há
+     * console e termina quando ela se encerra.
      * 
      * @param args argumentos passados ao programa.
      * @throws Throwable qualquer exceção lançada pelo programa.
      */
     public static void main(String[] args) throws Throwable {
+        if (args.length > 0) {
+            ExecutorLote lote = new ExecutorLote(System.out);
+            boolean ok = true;
+            for (String roteiro : args)
+                ok &= lote.executar(roteiro);
+            System.exit(ok ? 0 : 1);
+        }
         System.out.print("\n\n\n\n\n\n\n\n\n\n\n Refatoracao do projeto de grafos");
         while (true)
             try {
@@ -167,6 +318,9 @@ public class App {
             } catch (NullPointerException e) {
                 System.out.println(" ERRO: Grafo nao criado");
                 App.pause();
+            } catch (NoSuchElementException e) {
+                System.out.println("\n Entrada encerrada");
+                System.exit(0);
             }
     }
 
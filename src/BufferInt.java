@@ -0,0 +1,71 @@
+/*
+ *  Copyright 2023 Henrique Almeida
+ * 
+ * This file is part of Projeto grafos.
+ * 
+ * Projeto grafos is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * Projeto grafos is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ * 
+ * You should have received a copy of the GNU
+ * General Public License along with Projeto grafos. If not, see
+ * <https://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+
+/**
+ * Vetor de inteiros que cresce conforme necessário, usado pelos leitores do
+ * formato nativo para acumular valores sem criar objetos por item.
+ * 
+ * @author henrish0
+ */
+class BufferInt {
+    /** Dados armazenados. */
+    int[] dados = new int[1 << 10];
+
+    /** Quantidade de posições ocupadas. */
+    int tamanho = 0;
+
+    /**
+     * Adiciona um valor ao fim do vetor.
+     * 
+     * @param valor Valor a ser adicionado.
+     * @return O próprio vetor para encadeamento de chamadas.
+     */
+    BufferInt add(int valor) {
+        if (this.tamanho == this.dados.length)
+            this.dados = Arrays.copyOf(this.dados, this.dados.length * 2);
+        this.dados[this.tamanho++] = valor;
+        return this;
+    }
+
+    /**
+     * Adiciona valores ao fim do vetor.
+     * 
+     * @param valores Valores a serem adicionados.
+     * @return O próprio vetor para encadeamento de chamadas.
+     */
+    BufferInt add(int[] valores) {
+        if (this.tamanho + valores.length > this.dados.length)
+            this.dados = Arrays.copyOf(this.dados, Math.max(this.dados.length * 2, this.tamanho + valores.length));
+        System.arraycopy(valores, 0, this.dados, this.tamanho, valores.length);
+        this.tamanho += valores.length;
+        return this;
+    }
+
+    /**
+     * Copia os valores armazenados.
+     * 
+     * @return Vetor com exatamente <code>tamanho</code> posições.
+     */
+    int[] copiar() {
+        return Arrays.copyOf(this.dados, this.tamanho);
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ *  Copyright 2023 Henrique Almeida
+ * 
+ * This file is part of Projeto grafos.
+ * 
+ * Projeto grafos is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * Projeto grafos is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ * 
+ * You should have received a copy of the GNU
+ * General Public License along with Projeto grafos. If not, see
+ * <https://www.gnu.org/licenses/>.
+*/
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Carrega grafos no formato nativo do projeto usando várias threads.
+ * <br><br>
+ * Aceita vários arquivos (fragmentos de um mesmo grafo) ou diretórios com
+ * arquivos <code>.csv</code>. Cada arquivo é dividido em trechos alinhados ao
+ * separador <code>;</code>, que são lidos em paralelo para buffers primitivos
+ * próprios de cada tarefa. As arestas já saem dos trechos agrupadas pelo vértice
+ * de origem, de forma que a junção final também é paralela: cada thread insere
+ * arestas apenas nos vértices do seu grupo. O grafo também pode ser carregado
+ * em um {@link GrafoForaHeap}; nesse caso a leitura é paralela e a inserção,
+ * sequencial.
+ * 
+ * @see Grafo#carregar(String, Path...)
+ * @author henrish0
+ */
+public class CarregadorParalelo {
+    /** Extensão dos arquivos lidos de um diretório. */
+    private static final String TIPO = ".csv";
+
+    /** Tamanho mínimo de um trecho, em bytes. */
+    private static final long TRECHO_MINIMO = 1 << 20;
+
+    /** Construtor que garante classe não instanciável */
+    private CarregadorParalelo() {
+        throw new InstantiationError("Classe nao instanciavel");
+    }
+
+    /**
+     * Carrega um grafo a partir de um ou mais arquivos ou diretórios.
+     * 
+     * @param nome     Nome do grafo.
+     * @param caminhos Arquivos ou diretórios com os fragmentos do grafo.
+     * @return Grafo lido, <code>null</code> se ocorreu erro de leitura ou se os
+     *         arquivos forem inconsistentes entre si.
+     */
+    public static Grafo carregar(String nome, Path... caminhos) {
+        return (Grafo) CarregadorParalelo.carregar(nome, false, caminhos);
+    }
+
+    /**
+     * Carrega um grafo fora do heap a partir de um ou mais arquivos ou
+     * diretórios.
+     * 
+     * @param caminhos Arquivos ou diretórios com os fragmentos do grafo.
+     * @return Grafo lido, <code>null</code> se ocorreu erro de leitura ou se os
+     *         arquivos forem inconsistentes entre si.
+     */
+    public static GrafoForaHeap carregarForaHeap(Path... caminhos) {
+        return (GrafoForaHeap) CarregadorParalelo.carregar(null, true, caminhos);
+    }
+
+    /**
+     * Lê os arquivos em paralelo e monta o grafo no armazenamento escolhido.
+     * 
+     * @param nome     Nome do grafo, usado apenas no armazenamento em heap.
+     * @param foraHeap <code>true</code> para montar um {@link GrafoForaHeap},
+     *                 <code>false</code> para um {@link Grafo}.
+     * @param caminhos Arquivos ou diretórios com os fragmentos do grafo.
+     * @return Grafo lido, <code>null</code> se ocorreu erro de leitura ou se os
+     *         arquivos forem inconsistentes entre si.
+     */
+    private static IGrafo carregar(String nome, boolean foraHeap, Path... caminhos) {
+        int nThreads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        List<FileChannel> canais = new ArrayList<FileChannel>();
+        // Fechado ao final se a leitura falhar, liberando a memória
+        GrafoForaHeap foraHeapOut = null;
+        try {
+            List<Path> arquivos = CarregadorParalelo.listarArquivos(caminhos);
+            if (arquivos.isEmpty())
+                return null;
+            List<Future<BufferInt[]>> vertices = new ArrayList<Future<BufferInt[]>>();
+            List<Future<BufferInt[]>> arestas = new ArrayList<Future<BufferInt[]>>();
+            String info = null;
+            for (Path arquivo : arquivos) {
+                FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+                canais.add(canal);
+                LeitorItens leitor = new LeitorItens(canal);
+                String infoArquivo = "" + (char) leitor.ler() + (char) leitor.ler();
+                if (info != null && !info.equals(infoArquivo) || leitor.ler() != '\n')
+                    return null;
+                info = infoArquivo;
+                long inicioVertices = leitor.getPosicao();
+                for (int c = leitor.ler(); c != '\n' && c != -1; c = leitor.ler());
+                long fimVertices = leitor.getPosicao() - 1, tamanho = canal.size();
+                CarregadorParalelo.dividir(executor, vertices, canal, inicioVertices, fimVertices, 1, 1, nThreads);
+                CarregadorParalelo.dividir(executor, arestas, canal, leitor.getPosicao(), tamanho,
+                        info.charAt(0) == '1' ? 3 : 2, nThreads, nThreads);
+            }
+            int nVertices = 0;
+            for (Future<BufferInt[]> f : vertices)
+                nVertices += f.get()[0].tamanho;
+            boolean ponderado = info.charAt(0) == '1', direcionado = info.charAt(1) == '1';
+            if (foraHeap)
+                foraHeapOut = new GrafoForaHeap(ponderado, direcionado, nVertices);
+            IGrafo out = foraHeap ? foraHeapOut : new Grafo(nome, ponderado, direcionado, nVertices);
+            for (Future<BufferInt[]> f : vertices) {
+                BufferInt buffer = f.get()[0];
+                for (int i = 0; i < buffer.tamanho; i++)
+                    out.addVertice(buffer.dados[i]);
+            }
+            if (foraHeap ? !CarregadorParalelo.juntar(foraHeapOut, arestas)
+                    : !CarregadorParalelo.juntar(executor, (Grafo) out, arestas, nThreads))
+                return null;
+            foraHeapOut = null;
+            return out;
+        } catch (IOException | ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            if (foraHeapOut != null)
+                foraHeapOut.close();
+            executor.shutdownNow();
+            for (FileChannel canal : canais)
+                try {
+                    canal.close();
+                } catch (IOException e) {}
+        }
+    }
+
+    /**
+     * Expande os caminhos recebidos em uma lista de arquivos, listando os
+     * arquivos <code>.csv</code> de cada diretório em ordem alfabética.
+     * 
+     * @param caminhos Arquivos ou diretórios.
+     * @return Lista de arquivos a serem lidos.
+     * @throws IOException se algum diretório não puder ser listado.
+     */
+    private static List<Path> listarArquivos(Path... caminhos) throws IOException {
+        List<Path> out = new ArrayList<Path>();
+        for (Path caminho : caminhos)
+            if (Files.isDirectory(caminho))
+                try (Stream<Path> s = Files.list(caminho)) {
+                    s.filter(p -> Files.isRegularFile(p) && p.toString().endsWith(TIPO)).sorted().forEach(out::add);
+                }
+            else
+                out.add(caminho);
+        return out;
+    }
+
+    /**
+     * Divide uma região do arquivo em trechos e agenda a leitura de cada um.
+     * 
+     * @param executor  Executor das tarefas.
+     * @param tarefas   Lista onde as tarefas agendadas são adicionadas.
+     * @param canal     Canal do arquivo.
+     * @param inicio    Posição inicial da região.
+     * @param fim       Posição final (exclusiva) da região.
+     * @param campos    Número de campos de cada item.
+     * @param grupos    Número de grupos em que os itens são distribuídos.
+     * @param nThreads  Número de threads disponíveis.
+     */
+    private static void dividir(ExecutorService executor, List<Future<BufferInt[]>> tarefas, FileChannel canal,
+            long inicio, long fim, int campos, int grupos, int nThreads) {
+        long passo = Math.max(TRECHO_MINIMO, (fim - inicio) / (nThreads * 4L) + 1);
+        for (long i = inicio; i < fim || i == inicio; i += passo)
+            tarefas.add(executor.submit(new Trecho(canal, inicio, i, Math.min(i + passo, fim), fim, campos, grupos)));
+    }
+
+    /**
+     * Insere em paralelo as arestas lidas. A thread <code>k</code> trata apenas o
+     * grupo <code>k</code> de cada trecho, logo nenhum vértice de origem é
+     * alterado por duas threads.
+     * 
+     * @param executor Executor das tarefas.
+     * @param grafo    Grafo com todos os vértices já inseridos.
+     * @param arestas  Resultado das tarefas de leitura de arestas.
+     * @param grupos   Número de grupos.
+     * @return <code>true</code> se todas as arestas foram inseridas,
+     *         <code>false</code> se alguma aresta referencia vértice inexistente.
+     * @throws InterruptedException se a thread for interrompida.
+     * @throws ExecutionException   se alguma tarefa falhar.
+     */
+    private static boolean juntar(ExecutorService executor, Grafo grafo, List<Future<BufferInt[]>> arestas,
+            int grupos) throws InterruptedException, ExecutionException {
+        List<BufferInt[]> trechos = new ArrayList<BufferInt[]>(arestas.size());
+        for (Future<BufferInt[]> f : arestas)
+            trechos.add(f.get());
+        int passo = grafo.ePonderado() ? 3 : 2;
+        AtomicBoolean erro = new AtomicBoolean(false);
+        List<Callable<Void>> tarefas = new ArrayList<Callable<Void>>(grupos);
+        for (int k = 0; k < grupos; k++) {
+            int grupo = k;
+            tarefas.add(() -> {
+                for (BufferInt[] trecho : trechos) {
+                    BufferInt buffer = trecho[grupo];
+                    for (int i = 0; i < buffer.tamanho; i += passo) {
+                        Vertice origem = grafo.getVertice(buffer.dados[i]),
+                                destino = grafo.getVertice(buffer.dados[i + 1]);
+                        if (origem == null || destino == null)
+                            erro.set(true);
+                        else
+                            origem.addAresta(passo == 3 ? new ArestaPonderada(destino, buffer.dados[i + 2])
+                                    : new Aresta(destino));
+                    }
+                }
+                return null;
+            });
+        }
+        for (Future<Void> f : executor.invokeAll(tarefas))
+            f.get();
+        return !erro.get();
+    }
+
+    /**
+     * Insere as arestas lidas em um grafo fora do heap, que não admite escrita
+     * concorrente. Como na versão em heap, cada item liga apenas a sua origem ao
+     * seu destino, sem procurar arestas repetidas; o arquivo já traz os dois
+     * sentidos das arestas não direcionadas.
+     * 
+     * @param grafo   Grafo com todos os vértices já inseridos.
+     * @param arestas Resultado das tarefas de leitura de arestas.
+     * @return <code>true</code> se todas as arestas foram inseridas,
+     *         <code>false</code> se alguma aresta referencia vértice inexistente.
+     * @throws InterruptedException se a thread for interrompida.
+     * @throws ExecutionException   se alguma tarefa falhar.
+     */
+    private static boolean juntar(GrafoForaHeap grafo, List<Future<BufferInt[]>> arestas)
+            throws InterruptedException, ExecutionException {
+        int passo = grafo.ePonderado() ? 3 : 2;
+        for (Future<BufferInt[]> f : arestas)
+            for (BufferInt buffer : f.get())
+                for (int i = 0; i < buffer.tamanho; i += passo)
+                    if (!grafo.anexar(buffer.dados[i], buffer.dados[i + 1], passo == 3 ? buffer.dados[i + 2] : 1))
+                        return false;
+        return true;
+    }
+
+    /** Lê os itens de um trecho do arquivo para buffers primitivos. */
+    private static class Trecho implements Callable<BufferInt[]> {
+        /** Canal do arquivo. */
+        private final FileChannel CANAL;
+        /** Início da região a que o trecho pertence. */
+        private final long INICIO_REGIAO;
+        /** Início do trecho. */
+        private final long INICIO;
+        /** Fim do trecho: apenas itens que começam antes desta posição são lidos. */
+        private final long FIM;
+        /** Fim da região, o último item pode ultrapassar o fim do trecho até aqui. */
+        private final long LIMITE;
+        /** Número de campos de cada item. */
+        private final int CAMPOS;
+        /** Número de grupos de saída. */
+        private final int GRUPOS;
+
+        /**
+         * Construtor padrão.
+         * 
+         * @param canal        Canal do arquivo.
+         * @param inicioRegiao Início da região a que o trecho pertence.
+         * @param inicio       Início do trecho.
+         * @param fim          Fim do trecho.
+         * @param limite       Fim da região.
+         * @param campos       Número de campos de cada item.
+         * @param grupos       Número de grupos de saída.
+         */
+        private Trecho(FileChannel canal, long inicioRegiao, long inicio, long fim, long limite, int campos,
+                int grupos) {
+            this.CANAL = canal;
+            this.INICIO_REGIAO = inicioRegiao;
+            this.INICIO = inicio;
+            this.FIM = fim;
+            this.LIMITE = limite;
+            this.CAMPOS = campos;
+            this.GRUPOS = grupos;
+        }
+
+        @Override
+        public BufferInt[] call() throws IOException {
+            BufferInt[] out = new BufferInt[this.GRUPOS];
+            for (int i = 0; i < this.GRUPOS; i++)
+                out[i] = new BufferInt();
+            LeitorItens leitor = new LeitorItens(this.CANAL, this.INICIO, this.LIMITE);
+            if (this.INICIO > this.INICIO_REGIAO) {
+                // O item que cruza o início do trecho pertence ao trecho anterior
+                leitor = new LeitorItens(this.CANAL, this.INICIO - 1, this.LIMITE);
+                for (int c = leitor.ler(); c != ';' && c != -1; c = leitor.ler());
+            }
+            int[] valores = new int[this.CAMPOS];
+            while (leitor.getPosicao() < this.FIM) {
+                int n = leitor.lerItem(valores);
+                if (n == 0)
+                    continue;
+                if (n != this.CAMPOS)
+                    throw new IOException("Item com numero de campos invalido");
+                out[Math.floorMod(valores[0], this.GRUPOS)].add(valores);
+            }
+            return out;
+        }
+    }
+}
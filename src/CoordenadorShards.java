@@ -0,0 +1,262 @@
+/*
+ *  Copyright 2023 Henrique Almeida
+ * 
+ * This file is part of Projeto grafos.
+ * 
+ * Projeto grafos is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * Projeto grafos is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ * 
+ * You should have received a copy of the GNU
+ * General Public License along with Projeto grafos. If not, see
+ * <https://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Executa buscas em grafos particionados por {@link Particionador}, com um
+ * processo {@link TrabalhadorShard} por fragmento na mesma máquina.
+ * <br><br>
+ * O coordenador guarda apenas o dono de cada vértice. A cada rodada envia um
+ * lote de mensagens por trabalhador, todos processam em paralelo, e as
+ * respostas são redistribuídas pelos donos dos vértices na rodada seguinte.
+ * 
+ * @author henrish0
+ */
+public class CoordenadorShards implements AutoCloseable {
+    /** Identificadores dos vértices, em ordem crescente. */
+    private final int[] IDS;
+
+    /** Fragmento dono de cada vértice, na ordem de <code>IDS</code>. */
+    private final int[] DONOS;
+
+    /** Processos trabalhadores, um por fragmento. */
+    private final List<Process> PROCESSOS = new ArrayList<Process>();
+
+    /** Entrada de comandos de cada trabalhador. */
+    private final List<BufferedWriter> ENTRADAS = new ArrayList<BufferedWriter>();
+
+    /** Saída de respostas de cada trabalhador. */
+    private final List<BufferedReader> SAIDAS = new ArrayList<BufferedReader>();
+
+    /** Indica se o grafo particionado é direcionado. */
+    private final Boolean direcionado;
+
+    /**
+     * Construtor padrão. Inicia um processo para cada fragmento.
+     * 
+     * @param pasta Pasta com os arquivos salvos por {@link Particionador}.
+     * @param nome  Nome do grafo.
+     * @throws IOException se os arquivos não puderem ser lidos ou algum processo
+     *                     não iniciar.
+     */
+    public CoordenadorShards(Path pasta, String nome) throws IOException {
+        int[] ids = new int[1 << 10], donos = new int[1 << 10], campo = new int[2];
+        int n = 0, k = 0;
+        try (FileChannel canal = FileChannel.open(pasta.resolve(nome + ".part"), StandardOpenOption.READ)) {
+            LeitorItens leitor = new LeitorItens(canal);
+            do {
+                if (leitor.lerItem(campo) < 2)
+                    continue;
+                if (n == ids.length) {
+                    ids = Arrays.copyOf(ids, n * 2);
+                    donos = Arrays.copyOf(donos, n * 2);
+                }
+                // Particionador escreve os vértices em ordem crescente, o que permite a busca binária
+                if (n > 0 && campo[0] <= ids[n - 1])
+                    throw new IOException("Mapa de donos fora de ordem");
+                ids[n] = campo[0];
+                donos[n++] = campo[1];
+                k = Math.max(k, campo[1] + 1);
+            } while (leitor.getTerminador() == ';');
+        }
+        this.IDS = Arrays.copyOf(ids, n);
+        this.DONOS = Arrays.copyOf(donos, n);
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        String info = null;
+        try {
+            for (int p = 0; p < k; p++) {
+                Process processo = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        "TrabalhadorShard", pasta.resolve(nome + "_" + p + ".csv").toString())
+                        .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+                this.PROCESSOS.add(processo);
+                this.ENTRADAS.add(new BufferedWriter(
+                        new OutputStreamWriter(processo.getOutputStream(), StandardCharsets.US_ASCII), 1 << 16));
+                this.SAIDAS.add(new BufferedReader(
+                        new InputStreamReader(processo.getInputStream(), StandardCharsets.US_ASCII), 1 << 16));
+            }
+            for (BufferedReader saida : this.SAIDAS) {
+                String linha = saida.readLine();
+                if (linha == null || !linha.startsWith("OK "))
+                    throw new IOException("Trabalhador nao iniciou");
+                info = linha.substring(3);
+            }
+        } catch (IOException e) {
+            this.close();
+            throw e;
+        }
+        this.direcionado = info != null && info.charAt(1) == '1';
+    }
+
+    /**
+     * Busca em largura a partir de um vértice, sincronizada por nível.
+     * 
+     * @param origem Identificador do vértice de origem.
+     * @return Distância, em arestas, de cada vértice alcançado;
+     *         <code>null</code> se a origem não existe.
+     * @throws IOException se a comunicação com algum trabalhador falhar.
+     */
+    public HashMap<Integer, Integer> bfs(Integer origem) throws IOException {
+        if (this.dono(origem) < 0)
+            return null;
+        this.rodada(this.lotes("Z"), 0);
+        HashSet<Integer> fronteira = new HashSet<Integer>(List.of(origem));
+        for (int nivel = 0; !fronteira.isEmpty(); nivel++) {
+            String comando = "F " + nivel;
+            List<StringBuilder> lotes = this.lotes(comando);
+            for (int id : fronteira)
+                lotes.get(this.dono(id)).append(' ').append(id);
+            fronteira = new HashSet<Integer>();
+            for (String resposta : this.rodada(lotes, comando.length()))
+                for (int id : TrabalhadorShard.numeros(resposta))
+                    fronteira.add(id);
+        }
+        return this.coletar("D");
+    }
+
+    /**
+     * Rotula os componentes conexos propagando o menor identificador de cada
+     * componente entre os fragmentos até não haver mais mudanças.
+     * 
+     * @return Rótulo (menor identificador do componente) de cada vértice;
+     *         <code>null</code> se o grafo é direcionado.
+     * @throws IOException se a comunicação com algum trabalhador falhar.
+     */
+    public HashMap<Integer, Integer> componentes() throws IOException {
+        if (this.direcionado)
+            return null;
+        List<String> respostas = this.rodada(this.lotes("C"), 0);
+        while (!respostas.isEmpty()) {
+            List<StringBuilder> lotes = this.lotes("U");
+            for (String resposta : respostas) {
+                int[] m = TrabalhadorShard.numeros(resposta);
+                for (int i = 0; i + 1 < m.length; i += 2)
+                    lotes.get(this.dono(m[i])).append(' ').append(m[i]).append(' ').append(m[i + 1]);
+            }
+            respostas = this.rodada(lotes, 1);
+        }
+        return this.coletar("L");
+    }
+
+    /**
+     * Encerra os processos trabalhadores.
+     */
+    @Override
+    public void close() {
+        for (BufferedWriter entrada : this.ENTRADAS)
+            try {
+                entrada.write("S\n");
+                entrada.close();
+            } catch (IOException e) {}
+        for (Process processo : this.PROCESSOS)
+            try {
+                processo.waitFor();
+            } catch (InterruptedException e) {
+                processo.destroy();
+                Thread.currentThread().interrupt();
+            }
+    }
+
+    /**
+     * Envia um lote para cada trabalhador e lê as respostas. Todos os lotes são
+     * enviados antes de qualquer resposta ser lida, assim os trabalhadores
+     * processam em paralelo. Lotes sem argumentos além do comando não são
+     * enviados.
+     * 
+     * @param lotes   Lote de cada trabalhador.
+     * @param comando Tamanho do comando no início de cada lote, ou <code>0</code>
+     *                para enviar todos os lotes.
+     * @return Respostas dos trabalhadores que receberam um lote.
+     * @throws IOException se a comunicação com algum trabalhador falhar.
+     */
+    private List<String> rodada(List<StringBuilder> lotes, int comando) throws IOException {
+        boolean[] enviado = new boolean[lotes.size()];
+        for (int p = 0; p < lotes.size(); p++)
+            if (lotes.get(p).length() > comando) {
+                this.ENTRADAS.get(p).append(lotes.get(p)).append('\n').flush();
+                enviado[p] = true;
+            }
+        List<String> out = new ArrayList<String>();
+        for (int p = 0; p < lotes.size(); p++)
+            if (enviado[p]) {
+                String linha = this.SAIDAS.get(p).readLine();
+                if (linha == null)
+                    throw new IOException("Trabalhador " + p + " encerrou inesperadamente");
+                out.add(linha);
+            }
+        return out;
+    }
+
+    /**
+     * Envia um comando a todos os trabalhadores e junta os pares identificador e
+     * valor das respostas.
+     * 
+     * @param comando Comando a ser enviado.
+     * @return Valor de cada identificador.
+     * @throws IOException se a comunicação com algum trabalhador falhar.
+     */
+    private HashMap<Integer, Integer> coletar(String comando) throws IOException {
+        HashMap<Integer, Integer> out = new HashMap<Integer, Integer>();
+        for (String resposta : this.rodada(this.lotes(comando), 0)) {
+            int[] m = TrabalhadorShard.numeros(resposta);
+            for (int i = 0; i + 1 < m.length; i += 2)
+                out.put(m[i], m[i + 1]);
+        }
+        return out;
+    }
+
+    /**
+     * Cria um lote vazio para cada trabalhador.
+     * 
+     * @param comando Comando que inicia os lotes.
+     * @return Lotes vazios.
+     */
+    private List<StringBuilder> lotes(String comando) {
+        List<StringBuilder> out = new ArrayList<StringBuilder>(this.PROCESSOS.size());
+        for (int p = 0; p < this.PROCESSOS.size(); p++)
+            out.add(new StringBuilder(comando));
+        return out;
+    }
+
+    /**
+     * Retorna o fragmento dono de um vértice.
+     * 
+     * @param id Identificador do vértice.
+     * @return Fragmento dono, negativo se o vértice não existe.
+     */
+    private int dono(int id) {
+        int i = Arrays.binarySearch(this.IDS, id);
+        return i < 0 ? -1 : this.DONOS[i];
+    }
+
+}
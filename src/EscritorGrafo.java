@@ -0,0 +1,353 @@
+/*
+ *  Copyright 2023 Henrique Almeida
+ * 
+ * This file is part of Projeto grafos.
+ * 
+ * Projeto grafos is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * Projeto grafos is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ * 
+ * You should have received a copy of the GNU
+ * General Public License along with Projeto grafos. If not, see
+ * <https://www.gnu.org/licenses/>.
+*/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Escritor de grafos em fluxo.
+ * <br><br>
+ * Codifica o texto diretamente em um buffer de bytes reutilizável, que é
+ * descarregado no canal em blocos. Assim o arquivo nunca é montado por inteiro
+ * em memória e não há limite de tamanho imposto por {@link String}.
+ * 
+ * @see Grafo#exportar(String, Formato)
+ * @author henrish0
+ */
+public class EscritorGrafo implements AutoCloseable {
+    /** Formatos de escrita suportados. */
+    public enum Formato {
+        /** Formato nativo do projeto, lido por {@link Grafo#carregar(String)}. */
+        CSV,
+        /** Uma aresta por linha: <code>origem destino [peso]</code>. */
+        LISTA_ARESTAS,
+        /** Formato DIMACS, com vértices renumerados de 1 a n. */
+        DIMACS,
+        /** Formato XML GraphML. */
+        GRAPHML,
+        /** Mesma representação de {@link Grafo#toString()}. */
+        TEXTO
+    }
+
+    /** Fragmentos fixos escritos a cada vértice ou aresta, codificados uma única vez. */
+    private static final byte[] DIMACS_ARCO = EscritorGrafo.ascii("a "), DIMACS_ARESTA = EscritorGrafo.ascii("e "),
+            DIMACS_PESO_1 = EscritorGrafo.ascii(" 1"), GRAPHML_NO = EscritorGrafo.ascii("    <node id=\"n"),
+            GRAPHML_FIM_NO = EscritorGrafo.ascii("\"/>\n"), GRAPHML_ARESTA = EscritorGrafo.ascii("    <edge source=\"n"),
+            GRAPHML_DESTINO = EscritorGrafo.ascii("\" target=\"n"),
+            GRAPHML_PESO = EscritorGrafo.ascii("\"><data key=\"peso\">"),
+            GRAPHML_FIM_PESO = EscritorGrafo.ascii("</data></edge>\n");
+
+    /** Tamanho padrão do buffer, em bytes. */
+    private static final int TAMANHO_BUFFER = 1 << 16;
+
+    /** Canal onde os bytes são descarregados. */
+    private final WritableByteChannel CANAL;
+
+    /** Buffer reutilizado entre descargas. */
+    private final ByteBuffer BUFFER;
+
+    /** Área temporária para conversão de inteiros em dígitos. */
+    private final byte[] DIGITOS = new byte[11];
+
+    /**
+     * Construtor padrão.
+     * 
+     * @param canal Canal onde os bytes serão escritos.
+     */
+    public EscritorGrafo(WritableByteChannel canal) {
+        this(canal, TAMANHO_BUFFER);
+    }
+
+    /**
+     * Construtor com tamanho de buffer definido.
+     * 
+     * @param canal   Canal onde os bytes serão escritos.
+     * @param tamanho Tamanho do buffer, em bytes.
+     */
+    public EscritorGrafo(WritableByteChannel canal, int tamanho) {
+        this.CANAL = canal;
+        this.BUFFER = ByteBuffer.allocateDirect(Math.max(tamanho, DIGITOS.length));
+    }
+
+    /**
+     * Escreve o grafo no formato indicado.
+     * 
+     * @param grafo   Grafo a ser escrito.
+     * @param formato Formato de escrita.
+     * @return O próprio escritor para encadeamento de chamadas.
+     * @throws IOException se ocorrer erro de escrita.
+     */
+    public EscritorGrafo escrever(Grafo grafo, Formato formato) throws IOException {
+        switch (formato) {
+            case CSV -> this.escreverCSV(grafo);
+            case LISTA_ARESTAS -> this.escreverListaArestas(grafo);
+            case DIMACS -> this.escreverDIMACS(grafo);
+            case GRAPHML -> this.escreverGraphML(grafo);
+            case TEXTO -> this.escreverTexto(grafo);
+        }
+        return this;
+    }
+
+    /**
+     * Escreve um inteiro sem criar objetos intermediários.
+     * 
+     * @param n Inteiro a ser escrito.
+     * @return O próprio escritor para encadeamento de chamadas.
+     * @throws IOException se ocorrer erro de escrita.
+     */
+    public EscritorGrafo escrever(int n) throws IOException {
+        if (this.BUFFER.remaining() < DIGITOS.length)
+            this.descarregar();
+        long valor = n;
+        if (valor < 0) {
+            this.BUFFER.put((byte) '-');
+            valor = -valor;
+        }
+        int i = DIGITOS.length;
+        do {
+            DIGITOS[--i] = (byte) ('0' + valor % 10);
+            valor /= 10;
+        } while (valor != 0);
+        this.BUFFER.put(DIGITOS, i, DIGITOS.length - i);
+        return this;
+    }
+
+    /**
+     * Escreve um caractere ASCII.
+     * 
+     * @param c Caractere a ser escrito.
+     * @return O próprio escritor para encadeamento de chamadas.
+     * @throws IOException se ocorrer erro de escrita.
+     */
+    public EscritorGrafo escrever(char c) throws IOException {
+        if (c > 0x7F)
+            return this.escrever(String.valueOf(c));
+        if (!this.BUFFER.hasRemaining())
+            this.descarregar();
+        this.BUFFER.put((byte) c);
+        return this;
+    }
+
+    /**
+     * Escreve um texto codificado em UTF-8.
+     * 
+     * @param s Texto a ser escrito.
+     * @return O próprio escritor para encadeamento de chamadas.
+     * @throws IOException se ocorrer erro de escrita.
+     */
+    public EscritorGrafo escrever(String s) throws IOException {
+        return this.escrever(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Escreve bytes já codificados.
+     * 
+     * @param bytes Bytes a serem escritos.
+     * @return O próprio escritor para encadeamento de chamadas.
+     * @throws IOException se ocorrer erro de escrita.
+     */
+    public EscritorGrafo escrever(byte[] bytes) throws IOException {
+        for (int i = 0; i < bytes.length;) {
+            if (!this.BUFFER.hasRemaining())
+                this.descarregar();
+            int n = Math.min(this.BUFFER.remaining(), bytes.length - i);
+            this.BUFFER.put(bytes, i, n);
+            i += n;
+        }
+        return this;
+    }
+
+    /**
+     * Descarrega o conteúdo do buffer no canal.
+     * 
+     * @throws IOException se ocorrer erro de escrita.
+     */
+    public void descarregar() throws IOException {
+        this.BUFFER.flip();
+        while (this.BUFFER.hasRemaining())
+            this.CANAL.write(this.BUFFER);
+        this.BUFFER.clear();
+    }
+
+    /**
+     * Descarrega o buffer e fecha o canal.
+     * 
+     * @throws IOException se ocorrer erro de escrita.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            this.descarregar();
+        } finally {
+            this.CANAL.close();
+        }
+    }
+
+    /**
+     * Escreve o grafo no formato nativo do projeto.
+     * 
+     * @param grafo Grafo a ser escrito.
+     * @throws IOException se ocorrer erro de escrita.
+     */
+    private void escreverCSV(Grafo grafo) throws IOException {
+        this.escrever(grafo.ePonderado() ? '1' : '0').escrever(grafo.eDirecionado() ? '1' : '0').escrever('\n');
+        for (Vertice v : grafo.getVertices())
+            this.escrever(v.getID()).escrever(';');
+        this.escrever('\n');
+        for (Vertice v : grafo.getVertices())
+            v.toFile(this);
+    }
+
+    /**
+     * Escreve o grafo como lista de arestas. Em grafos não direcionados cada
+     * aresta é escrita uma única vez.
+     * 
+     * @param grafo Grafo a ser escrito.
+     * @throws IOException se ocorrer erro de escrita.
+     */
+    private void escreverListaArestas(Grafo grafo) throws IOException {
+        for (Vertice v : grafo.getVertices())
+            for (IAresta a : v.getArestas()) {
+                int destino = a.getDestino().getID();
+                if (!grafo.eDirecionado() && destino < v.getID())
+                    continue;
+                this.escrever(v.getID()).escrever(' ').escrever(destino);
+                if (a.getPeso() != null)
+                    this.escrever(' ').escrever(a.getPeso());
+                this.escrever('\n');
+            }
+    }
+
+    /**
+     * Escreve o grafo no formato DIMACS. Grafos não direcionados usam o problema
+     * <code>edge</code> e linhas <code>e</code>; grafos direcionados usam o
+     * problema <code>sp</code> e linhas <code>a</code>, com peso 1 quando o grafo
+     * não é ponderado.
+     * 
+     * @param grafo Grafo a ser escrito.
+     * @throws IOException se ocorrer erro de escrita.
+     */
+    private void escreverDIMACS(Grafo grafo) throws IOException {
+        int[] ids = EscritorGrafo.idsOrdenados(grafo);
+        long m = 0;
+        for (Vertice v : grafo.getVertices())
+            m += v.getArestas().size();
+        if (!grafo.eDirecionado())
+            m /= 2;
+        this.escrever("c ").escrever(grafo.getNome()).escrever('\n');
+        this.escrever(grafo.eDirecionado() ? "p sp " : "p edge ").escrever(ids.length).escrever(' ')
+                .escrever(Long.toString(m)).escrever('\n');
+        for (Vertice v : grafo.getVertices()) {
+            int origem = Arrays.binarySearch(ids, v.getID()) + 1;
+            for (IAresta a : v.getArestas()) {
+                int destino = a.getDestino().getID();
+                if (!grafo.eDirecionado() && destino < v.getID())
+                    continue;
+                this.escrever(grafo.eDirecionado() ? DIMACS_ARCO : DIMACS_ARESTA).escrever(origem).escrever(' ')
+                        .escrever(Arrays.binarySearch(ids, destino) + 1);
+                if (a.getPeso() != null)
+                    this.escrever(' ').escrever(a.getPeso());
+                else if (grafo.eDirecionado())
+                    this.escrever(DIMACS_PESO_1);
+                this.escrever('\n');
+            }
+        }
+    }
+
+    /**
+     * Escreve o grafo no formato GraphML.
+     * 
+     * @param grafo Grafo a ser escrito.
+     * @throws IOException se ocorrer erro de escrita.
+     */
+    private void escreverGraphML(Grafo grafo) throws IOException {
+        this.escrever("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .escrever("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+        if (grafo.ePonderado())
+            this.escrever("  <key id=\"peso\" for=\"edge\" attr.name=\"peso\" attr.type=\"int\"/>\n");
+        this.escrever("  <graph id=\"").escreverXML(grafo.getNome()).escrever("\" edgedefault=\"")
+                .escrever(grafo.eDirecionado() ? "directed" : "undirected").escrever("\">\n");
+        for (Vertice v : grafo.getVertices())
+            this.escrever(GRAPHML_NO).escrever(v.getID()).escrever(GRAPHML_FIM_NO);
+        for (Vertice v : grafo.getVertices())
+            for (IAresta a : v.getArestas()) {
+                int destino = a.getDestino().getID();
+                if (!grafo.eDirecionado() && destino < v.getID())
+                    continue;
+                this.escrever(GRAPHML_ARESTA).escrever(v.getID()).escrever(GRAPHML_DESTINO).escrever(destino);
+                if (a.getPeso() != null)
+                    this.escrever(GRAPHML_PESO).escrever(a.getPeso()).escrever(GRAPHML_FIM_PESO);
+                else
+                    this.escrever(GRAPHML_FIM_NO);
+            }
+        this.escrever("  </graph>\n</graphml>\n");
+    }
+
+    /**
+     * Escreve a mesma representação de {@link Grafo#toString()}, um vértice por
+     * vez.
+     * 
+     * @param grafo Grafo a ser escrito.
+     * @throws IOException se ocorrer erro de escrita.
+     */
+    private void escreverTexto(Grafo grafo) throws IOException {
+        this.escrever("\n\nGrafo \"").escrever(grafo.getNome()).escrever("\", vertices= {");
+        for (Vertice v : grafo.getVertices())
+            this.escrever(v.toString());
+        this.escrever("\n}\n");
+    }
+
+    /**
+     * Escreve um texto escapando os caracteres reservados do XML.
+     * 
+     * @param s Texto a ser escrito.
+     * @return O próprio escritor para encadeamento de chamadas.
+     * @throws IOException se ocorrer erro de escrita.
+     */
+    private EscritorGrafo escreverXML(String s) throws IOException {
+        return this.escrever(s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;"));
+    }
+
+    /**
+     * Codifica um fragmento fixo de texto.
+     * 
+     * @param s Texto ASCII.
+     * @return Bytes do texto.
+     */
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Retorna os identificadores dos vértices em ordem crescente, usados para
+     * renumerar os vértices de forma densa.
+     * 
+     * @param grafo Grafo de origem.
+     * @return Vetor ordenado com os identificadores.
+     */
+    private static int[] idsOrdenados(Grafo grafo) {
+        int[] ids = grafo.getVertices().stream().mapToInt(Vertice::getID).toArray();
+        Arrays.sort(ids);
+        return ids;
+    }
+}
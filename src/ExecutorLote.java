@@ -0,0 +1,366 @@
+/*
+ *  Copyright 2023 Henrique Almeida
+ * 
+ * This file is part of Projeto grafos.
+ * 
+ * Projeto grafos is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * Projeto grafos is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ * 
+ * You should have received a copy of the GNU
+ * General Public License along with Projeto grafos. If not, see
+ * <https://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Executa comandos sobre um grafo sem interação com o usuário, lidos de um
+ * roteiro ou da entrada padrão.
+ * <br><br>
+ * Cada linha é um comando seguido de seus argumentos, separados por espaços.
+ * Linhas vazias e iniciadas por <code>#</code> são ignoradas. Para cada comando
+ * é impressa uma linha com o resultado e o tempo gasto; a saída é acumulada em
+ * um buffer e só é descarregada quando enche ou ao final do roteiro. Comandos
+ * com erro são informados e a execução continua. Comandos aceitos:
+ * <ul>
+ * <li><code>criar nome [ponderado S/N] [direcionado S/N] [fora-heap]</code></li>
+ * <li><code>carregar nome [arquivo ou diretorio...]</code>, em paralelo se
+ * houver caminhos, e <code>carregar-fora-heap arquivo ou diretorio...</code></li>
+ * <li><code>salvar</code>, <code>imprimir</code> e
+ * <code>exportar formato caminho</code></li>
+ * <li><code>vertice id...</code>, <code>aresta origem destino [peso]</code> e
+ * <code>vizinhos id</code></li>
+ * <li><code>arestas arquivo</code>, uma aresta <code>origem destino [peso]</code>
+ * por linha, criando os vértices que faltarem</li>
+ * <li><code>remover-vertice id</code> e
+ * <code>remover-aresta origem destino</code></li>
+ * <li><code>completo</code>, <code>triangulos</code>,
+ * <code>componentes</code> e <code>conectados id1 id2</code></li>
+ * <li><code>topologica</code>, <code>menor-caminho origem destino</code> e
+ * <code>maior-caminho origem destino</code>, apenas em grafos direcionados</li>
+ * <li><code>particionar k pasta [rotulos]</code></li>
+ * <li><code>bfs-shards pasta nome origem</code> e
+ * <code>componentes-shards pasta nome</code>, com um processo por fragmento
+ * salvo por <code>particionar</code></li>
+ * <li><code>sair</code></li>
+ * </ul>
+ * Arestas sem peso em grafos ponderados recebem peso 1. Um grafo criado com
+ * <code>fora-heap</code> usa {@link GrafoForaHeap} e aceita apenas os comandos de
+ * carga, inserção, remoção e <code>vizinhos</code>; os demais exigem o
+ * armazenamento em heap.
+ * 
+ * @see App
+ * @author henrish0
+ */
+public class ExecutorLote {
+    /** Separador dos campos de uma linha. */
+    private static final Pattern SEPARADOR = Pattern.compile("[\\s,;]+");
+
+    /** Saída dos resultados. */
+    private final PrintStream SAIDA;
+
+    /** Grafo sobre o qual os comandos são executados. */
+    private IGrafo grafo;
+
+    /** Número de comandos com erro. */
+    private int falhas = 0;
+
+    /**
+     * Construtor padrão.
+     * 
+     * @param saida Fluxo onde os resultados são escritos.
+     */
+    public ExecutorLote(OutputStream saida) {
+        this.SAIDA = new PrintStream(new BufferedOutputStream(saida, 1 << 16), false, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Executa um roteiro de um arquivo, ou da entrada padrão se o caminho for
+     * <code>-</code>.
+     * 
+     * @param caminho Caminho do roteiro.
+     * @return <code>true</code> se todos os comandos foram executados sem erro,
+     *         <code>false</code> caso contrário.
+     */
+    public Boolean executar(String caminho) {
+        try (BufferedReader roteiro = caminho.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16)
+                : Files.newBufferedReader(Path.of(caminho), StandardCharsets.UTF_8)) {
+            return this.executar(roteiro);
+        } catch (IOException e) {
+            this.SAIDA.println(" ERRO: Roteiro nao pode ser lido: " + e.getMessage());
+            this.SAIDA.flush();
+            return false;
+        }
+    }
+
+    /**
+     * Executa todos os comandos de um roteiro, até o fim ou até o comando
+     * <code>sair</code>.
+     * 
+     * @param roteiro Leitor do roteiro.
+     * @return <code>true</code> se todos os comandos foram executados sem erro,
+     *         <code>false</code> caso contrário.
+     * @throws IOException se ocorrer erro de leitura do roteiro.
+     */
+    public Boolean executar(BufferedReader roteiro) throws IOException {
+        long inicio = System.nanoTime();
+        int n = 0;
+        try {
+            for (String linha; (linha = roteiro.readLine()) != null;) {
+                linha = linha.trim();
+                if (linha.isEmpty() || linha.startsWith("#"))
+                    continue;
+                if (linha.equalsIgnoreCase("sair"))
+                    break;
+                n++;
+                long t = System.nanoTime();
+                String resultado = this.executarLinha(linha);
+                this.SAIDA.printf(Locale.ROOT, " [%d] %s: %s (%.3f ms)%n", n, linha, resultado,
+                        (System.nanoTime() - t) / 1e6);
+            }
+            this.SAIDA.printf(Locale.ROOT, " %d comandos, %d com erro (%.3f ms)%n", n, this.falhas,
+                    (System.nanoTime() - inicio) / 1e6);
+        } finally {
+            this.SAIDA.flush();
+        }
+        return this.falhas == 0;
+    }
+
+    /**
+     * Executa uma linha do roteiro, convertendo os erros em mensagens.
+     * 
+     * @param linha Linha do roteiro.
+     * @return Resultado do comando ou mensagem de erro.
+     */
+    private String executarLinha(String linha) {
+        String erro;
+        try {
+            String out = this.comando(SEPARADOR.split(linha));
+            if (out != null)
+                return out;
+            erro = "Comando falhou";
+        } catch (NullPointerException e) {
+            erro = e.toString();
+        } catch (NumberFormatException e) {
+            erro = "Valor invalido";
+        } catch (ArrayIndexOutOfBoundsException e) {
+            erro = "Argumentos insuficientes";
+        } catch (IllegalArgumentException | IllegalStateException | IOException e) {
+            erro = e.getMessage();
+        }
+        this.falhas++;
+        return "ERRO: " + erro;
+    }
+
+    /**
+     * Executa um comando.
+     * 
+     * @param a Comando seguido de seus argumentos.
+     * @return Resultado do comando, <code>null</code> se o comando falhou.
+     * @throws IOException se ocorrer erro de leitura ou escrita.
+     */
+    private String comando(String[] a) throws IOException {
+        return switch (a[0].toLowerCase(Locale.ROOT)) {
+            case "criar" -> {
+                boolean ponderado = a.length > 2 && ExecutorLote.sim(a[2]), direcionado = a.length > 3 && ExecutorLote.sim(a[3]);
+                this.trocar(a.length > 4 && a[4].equalsIgnoreCase("fora-heap")
+                        ? new GrafoForaHeap(ponderado, direcionado)
+                        : new Grafo(a[1], ponderado, direcionado));
+                yield "Grafo criado";
+            }
+            case "carregar" -> {
+                Grafo g = a.length > 2
+                        ? Grafo.carregar(a[1], Arrays.stream(a, 2, a.length).map(Path::of).toArray(Path[]::new))
+                        : Grafo.carregar(a[1]);
+                if (g != null)
+                    this.trocar(g);
+                yield g != null ? g.getVertices().size() + " vertices" : null;
+            }
+            case "carregar-fora-heap" -> {
+                GrafoForaHeap g = CarregadorParalelo.carregarForaHeap(
+                        Arrays.stream(a, 1, a.length).map(Path::of).toArray(Path[]::new));
+                if (g != null)
+                    this.trocar(g);
+                yield g != null ? g.getNumeroVertices() + " vertices, " + g.getNumeroArestas() + " arestas" : null;
+            }
+            case "salvar" -> this.emHeap().salvar() ? "Grafo salvo" : null;
+            case "exportar" -> this.emHeap().exportar(a[2], ExecutorLote.formato(a[1]))
+                    ? "Grafo exportado"
+                    : null;
+            case "imprimir" -> this.emHeap().imprimir(this.SAIDA) ? "Grafo impresso" : null;
+            case "vertice" -> {
+                int n = 0;
+                for (int i = 1; i < a.length; i++)
+                    n += this.atual().addVertice(Integer.parseInt(a[i])) ? 1 : 0;
+                yield n + " vertices adicionados";
+            }
+            case "aresta" -> this.atual().addAresta(Integer.parseInt(a[1]), Integer.parseInt(a[2]),
+                    a.length > 3 ? Integer.parseInt(a[3]) : 1) ? "Aresta adicionada" : null;
+            case "arestas" -> this.addArestas(Path.of(a[1])) + " arestas adicionadas";
+            case "vizinhos" -> {
+                int[] v = this.atual().vizinhos(Integer.valueOf(a[1]));
+                yield v == null ? null : Arrays.toString(v);
+            }
+            case "remover-vertice" -> this.atual().removerVertice(Integer.parseInt(a[1])) ? "Vertice removido" : null;
+            case "remover-aresta" -> this.atual().removerAresta(Integer.parseInt(a[1]), Integer.parseInt(a[2]))
+                    ? "Aresta removida"
+                    : null;
+            case "completo" -> this.emHeap().completo() ? "O grafo e completo" : "O grafo nao e completo";
+            case "triangulos" -> {
+                Triangulos t = new Triangulos(this.emHeap());
+                yield t.contar() + " triangulos, coeficiente de agrupamento medio " + t.coeficienteMedio();
+            }
+            case "componentes" -> this.emHeap().numeroComponentes() + " componentes conexos";
+            case "conectados" -> this.emHeap().conectados(Integer.parseInt(a[1]), Integer.parseInt(a[2]))
+                    ? "Os vertices estao conectados"
+                    : "Os vertices nao estao conectados";
+            case "topologica" -> {
+                OrdenacaoTopologica t = new OrdenacaoTopologica(this.emHeap());
+                if (t.temCiclo())
+                    yield "Ciclo " + Arrays.toString(t.ciclo());
+                int[] critico = t.caminhoCritico();
+                yield t.niveis().length + " niveis, caminho critico de comprimento " + t.comprimento(critico)
+                        + " com " + critico.length + " vertices";
+            }
+            case "menor-caminho", "maior-caminho" -> {
+                OrdenacaoTopologica t = new OrdenacaoTopologica(this.emHeap());
+                Integer origem = Integer.valueOf(a[1]), destino = Integer.valueOf(a[2]);
+                int[] c = a[0].toLowerCase(Locale.ROOT).startsWith("menor")
+                        ? t.menorCaminho(origem, destino)
+                        : t.maiorCaminho(origem, destino);
+                yield c == null ? null : "Comprimento " + t.comprimento(c) + " " + Arrays.toString(c);
+            }
+            case "particionar" -> {
+                Particionador p = new Particionador(this.emHeap(), Integer.parseInt(a[1]));
+                int[] particao = a.length > 3 && a[3].equalsIgnoreCase("rotulos") ? p.propagacaoRotulos(20) : p.porHash();
+                yield p.salvar(particao, Path.of(a[2])) ? p.arestasCortadas(particao) + " arestas de fronteira" : null;
+            }
+            case "bfs-shards" -> {
+                try (CoordenadorShards c = new CoordenadorShards(Path.of(a[1]), a[2])) {
+                    HashMap<Integer, Integer> dist = c.bfs(Integer.valueOf(a[3]));
+                    yield dist == null ? null
+                            : dist.size() + " vertices alcancados, maior distancia "
+                                    + dist.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+                }
+            }
+            case "componentes-shards" -> {
+                try (CoordenadorShards c = new CoordenadorShards(Path.of(a[1]), a[2])) {
+                    HashMap<Integer, Integer> rotulos = c.componentes();
+                    yield rotulos == null ? null : new HashSet<Integer>(rotulos.values()).size() + " componentes conexos";
+                }
+            }
+            default -> throw new IllegalArgumentException("Comando desconhecido");
+        };
+    }
+
+    /**
+     * Adiciona as arestas de um arquivo, uma por linha no formato
+     * <code>origem destino [peso]</code>. Os vértices que não existirem são
+     * criados.
+     * 
+     * @param caminho Caminho do arquivo.
+     * @return Número de arestas adicionadas.
+     * @throws IOException se ocorrer erro de leitura.
+     */
+    private long addArestas(Path caminho) throws IOException {
+        IGrafo g = this.atual();
+        long out = 0;
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(caminho), StandardCharsets.US_ASCII), 1 << 16)) {
+            for (String linha; (linha = br.readLine()) != null;) {
+                linha = linha.trim();
+                if (linha.isEmpty() || linha.startsWith("#"))
+                    continue;
+                String[] c = SEPARADOR.split(linha);
+                Integer origem = Integer.valueOf(c[0]), destino = Integer.valueOf(c[1]);
+                g.addVertice(origem);
+                g.addVertice(destino);
+                out += g.addAresta(origem, destino, c.length > 2 ? Integer.valueOf(c[2]) : 1) ? 1 : 0;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Substitui o grafo atual, liberando a memória do anterior se estava fora do
+     * heap.
+     * 
+     * @param novo Novo grafo.
+     */
+    private void trocar(IGrafo novo) {
+        if (this.grafo instanceof GrafoForaHeap g && g != novo)
+            g.close();
+        this.grafo = novo;
+    }
+
+    /**
+     * Retorna o grafo atual.
+     * 
+     * @return Grafo atual.
+     * @throws IllegalStateException se nenhum grafo foi criado ou carregado.
+     */
+    private IGrafo atual() {
+        if (this.grafo == null)
+            throw new IllegalStateException("Grafo nao criado");
+        return this.grafo;
+    }
+
+    /**
+     * Retorna o grafo atual para comandos que exigem o armazenamento em heap.
+     * 
+     * @return Grafo atual.
+     * @throws IllegalStateException se nenhum grafo foi criado ou se o grafo está
+     *                               fora do heap.
+     */
+    private Grafo emHeap() {
+        if (this.atual() instanceof GrafoForaHeap)
+            throw new IllegalStateException("Comando indisponivel para grafo fora do heap");
+        return (Grafo) this.grafo;
+    }
+
+    /**
+     * Interpreta o nome de um formato de exportação.
+     * 
+     * @param nome Nome do formato, sem diferenciar maiúsculas.
+     * @return Formato correspondente.
+     * @throws IllegalArgumentException se o formato não existe.
+     */
+    private static EscritorGrafo.Formato formato(String nome) {
+        for (EscritorGrafo.Formato f : EscritorGrafo.Formato.values())
+            if (f.name().equalsIgnoreCase(nome))
+                return f;
+        throw new IllegalArgumentException("Formato invalido, use um de " + Arrays.toString(EscritorGrafo.Formato.values()));
+    }
+
+    /**
+     * Interpreta uma resposta afirmativa.
+     * 
+     * @param valor Valor lido.
+     * @return <code>true</code> se o valor é <code>S</code> ou <code>1</code>.
+     */
+    private static boolean sim(String valor) {
+        return valor.equalsIgnoreCase("S") || valor.equals("1");
+    }
+
+}
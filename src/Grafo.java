@@ -20,8 +20,12 @@
 
 import java.io.BufferedReader;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Collection;
 import java.util.HashMap;
 
@@ -31,9 +35,10 @@ import java.util.HashMap;
  * @see <a href="https://pt.wikipedia.org/wiki/Grafo">Grafo</a>
  * @see Vertice
  * @see IAresta
+ * @see IGrafo
  * @author henrish0
  */
-public class Grafo {
+public class Grafo implements IGrafo {
     /** Nome do grafo. */
     private final String NOME;
 
@@ -49,6 +54,12 @@ public class Grafo {
     /** Indica se o grafo é direcionado. */
     private Boolean direcionado;
 
+    /**
+     * Componentes conexos mantidos a cada nova aresta, <code>null</code> quando
+     * precisam ser recalculados.
+     */
+    private UniaoBusca componentes;
+
     /**
      * Construtor padrão.
      * 
@@ -76,25 +87,50 @@ public class Grafo {
      * @return <code>true</code> se o vértice foi adicionado, <code>false</code> se
      *         o vértice já existia.
      */
+    @Override
     public Boolean addVertice(Integer id) {
         if (this.vertices.containsKey(id))
             return false;
-        return this.vertices.put(id, new Vertice(id)) == null;
+        Vertice v = new Vertice(id);
+        if (this.componentes != null)
+            v.setIndice(this.componentes.add());
+        return this.vertices.put(id, v) == null;
     }
 
     /**
-     * Adiciona uma aresta ao grafo.
+     * Adiciona uma aresta ao grafo. Em grafos ponderados o peso é lido do
+     * console.
      * 
      * @param id1 Identificador do vértice de origem.
      * @param id2 Identificador do vértice de destino.
      * @return <code>true</code> se a aresta foi adicionada, <code>false</code> se a
      *         aresta já existia.
      */
+    @Override
     public Boolean addAresta(Integer id1, Integer id2) {
+        return this.addAresta(id1, id2, null);
+    }
+
+    /**
+     * Adiciona uma aresta com peso definido ao grafo.
+     * 
+     * @param id1  Identificador do vértice de origem.
+     * @param id2  Identificador do vértice de destino.
+     * @param peso Peso da aresta, ignorado em grafos não ponderados. Se
+     *             <code>null</code> em grafos ponderados, é lido do console.
+     * @return <code>true</code> se a aresta foi adicionada, <code>false</code> se a
+     *         aresta já existia.
+     */
+    @Override
+    public Boolean addAresta(Integer id1, Integer id2, Integer peso) {
         Vertice vOrigem = vertices.get(id1),
                 vDestino = vertices.get(id2);
-        return vOrigem == null || vDestino == null || id1.equals(id2) || vOrigem.haAresta(vDestino.getID()) ? false
-                : this.addAresta.addAresta(vOrigem, vDestino);
+        if (vOrigem == null || vDestino == null || id1.equals(id2) || vOrigem.haAresta(vDestino.getID())
+                || !this.addAresta.addAresta(vOrigem, vDestino, peso))
+            return false;
+        if (this.componentes != null)
+            this.componentes.unir(vOrigem.getIndice(), vDestino.getIndice());
+        return true;
     }
 
     /**
@@ -104,11 +140,13 @@ public class Grafo {
      * @return <code>true</code> se o vértice foi removido, <code>false</code> se o
      *         vértice não existia.
      */
+    @Override
     public Boolean removerVertice(Integer id) {
         Vertice v = vertices.remove(id);
         if (v == null)
             return false;
         this.vertices.values().forEach(v2 -> v2.removerAresta(id));
+        this.componentes = null;
         return true;
     }
 
@@ -120,12 +158,29 @@ public class Grafo {
      * @return <code>true</code> se a aresta foi removida, <code>false</code> se a
      *         aresta não existia.
      */
+    @Override
     public Boolean removerAresta(Integer id1, Integer id2) {
         Vertice vOrigem = this.vertices.get(id1),
                 vDestino = this.vertices.get(id2);
-        return vOrigem == null || vDestino == null || !vOrigem.haAresta(vDestino.getID()) ? false
-                : vOrigem.removerAresta(vDestino.getID())
-                        && (!this.direcionado ? vDestino.removerAresta(vOrigem.getID()) : true);
+        if (vOrigem == null || vDestino == null || !vOrigem.haAresta(vDestino.getID()))
+            return false;
+        // A união e busca não desfaz uniões, então é recalculada na próxima consulta
+        this.componentes = null;
+        return vOrigem.removerAresta(vDestino.getID())
+                && (!this.direcionado ? vDestino.removerAresta(vOrigem.getID()) : true);
+    }
+
+    /**
+     * Retorna os vizinhos de um vértice, em ordem crescente de identificador.
+     * 
+     * @param id Identificador do vértice.
+     * @return Identificadores dos vizinhos, <code>null</code> se o vértice não
+     *         existe.
+     */
+    @Override
+    public int[] vizinhos(Integer id) {
+        Vertice v = this.vertices.get(id);
+        return v == null ? null : v.getArestas().stream().mapToInt(a -> a.getDestino().getID()).toArray();
     }
 
     /**
@@ -174,6 +229,64 @@ public class Grafo {
         return this.vertices.values().stream().allMatch(Vertice::getVisitado);
     }
 
+    /**
+     * Verifica se dois vértices estão no mesmo componente conexo. Em grafos
+     * direcionados considera os componentes fracamente conexos.
+     * 
+     * @param id1 Identificador do primeiro vértice.
+     * @param id2 Identificador do segundo vértice.
+     * @return <code>true</code> se os vértices estão conectados,
+     *         <code>false</code> se não estão ou se algum não existe.
+     */
+    public Boolean conectados(Integer id1, Integer id2) {
+        Vertice v1 = this.vertices.get(id1), v2 = this.vertices.get(id2);
+        return v1 != null && v2 != null && this.uniaoBusca().conectados(v1.getIndice(), v2.getIndice());
+    }
+
+    /**
+     * Conta os componentes conexos do grafo. Em grafos direcionados conta os
+     * componentes fracamente conexos.
+     * 
+     * @return Número de componentes conexos.
+     */
+    public Integer numeroComponentes() {
+        return this.uniaoBusca().getConjuntos();
+    }
+
+    /**
+     * Rotula os componentes conexos do grafo.
+     * 
+     * @return Identificador de um representante do componente de cada vértice.
+     */
+    public HashMap<Integer, Integer> rotularComponentes() {
+        UniaoBusca uf = this.uniaoBusca();
+        int[] ids = new int[uf.getTamanho()];
+        this.vertices.values().forEach(v -> ids[v.getIndice()] = v.getID());
+        HashMap<Integer, Integer> out = new HashMap<Integer, Integer>(this.vertices.size());
+        this.vertices.values().forEach(v -> out.put(v.getID(), ids[uf.buscar(v.getIndice())]));
+        return out;
+    }
+
+    /**
+     * Retorna a união e busca dos componentes, recalculando-a em paralelo se
+     * necessário. A partir daí ela é mantida por {@link #addVertice(Integer)} e
+     * {@link #addAresta(Integer, Integer)}.
+     * 
+     * @return União e busca atualizada.
+     */
+    private UniaoBusca uniaoBusca() {
+        if (this.componentes == null) {
+            int i = 0;
+            for (Vertice v : this.vertices.values())
+                v.setIndice(i++);
+            UniaoBusca uf = new UniaoBusca(i);
+            this.vertices.values().parallelStream()
+                    .forEach(v -> v.getArestas().forEach(a -> uf.unir(v.getIndice(), a.getDestino().getIndice())));
+            this.componentes = uf;
+        }
+        return this.componentes;
+    }
+
     /**
      * Método auxiliar para falsificar o atributo visitado de todos os vértices do
      * grafo.
@@ -192,14 +305,37 @@ public class Grafo {
      *         algum erro.
      */
     public Boolean salvar() {
-        StringBuilder sb = new StringBuilder(
-                (this.ponderado ? "1" : "0") +
-                        (this.direcionado ? "1" : "0") + "\n" //
-        );
-        this.vertices.values().forEach(v -> sb.append(v.getID()).append(";")); // IDs dos vértices
-        sb.append("\n");
-        this.vertices.values().forEach(v -> sb.append(v.toFile())); // Arestas
-        return Arquivo.salvarGrafo(new String(sb), this.NOME);
+        return Arquivo.salvarGrafo(this, Arquivo.PASTA + this.NOME + Arquivo.TIPO, EscritorGrafo.Formato.CSV);
+    }
+
+    /**
+     * Exporta o grafo para um arquivo em um dos formatos suportados.
+     * 
+     * @param caminho Caminho do arquivo de destino.
+     * @param formato Formato de exportação.
+     * @return <code>true</code> se o grafo foi exportado, <code>false</code> se
+     *         houve algum erro.
+     */
+    public Boolean exportar(String caminho, EscritorGrafo.Formato formato) {
+        return Arquivo.salvarGrafo(this, caminho, formato);
+    }
+
+    /**
+     * Imprime o grafo em um fluxo de saída sem montá-lo inteiro em memória. O
+     * fluxo não é fechado.
+     * 
+     * @param saida Fluxo de saída.
+     * @return <code>true</code> se o grafo foi impresso, <code>false</code> se
+     *         houve algum erro.
+     */
+    public Boolean imprimir(OutputStream saida) {
+        try {
+            new EscritorGrafo(Channels.newChannel(saida)).escrever(this, EscritorGrafo.Formato.TEXTO).descarregar();
+            saida.flush();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
     }
 
     /**
@@ -210,8 +346,37 @@ public class Grafo {
      */
     public static Grafo carregar(String nome) {
         return Arquivo.lerGrafo(nome);
+    }
+
+    /**
+     * Carrega um grafo fragmentado em vários arquivos, lendo-os em paralelo.
+     * 
+     * @param nome     Nome do grafo.
+     * @param caminhos Arquivos ou diretórios com os fragmentos.
+     * @return Grafo carregado, <code>null</code> se ocorreu erro de leitura.
+     * @see CarregadorParalelo
+     */
+    public static Grafo carregar(String nome, Path... caminhos) {
+        return CarregadorParalelo.carregar(nome, caminhos);
     }// @formatter:off
 
+    /** getNome
+     * @return Nome do grafo. */
+    public String getNome() { return this.NOME; }
+    /** ePonderado
+     * @return <code>true</code> se o grafo é ponderado, <code>false</code> caso contrário. */
+    public Boolean ePonderado() { return this.ponderado; }
+    /** eDirecionado
+     * @return <code>true</code> se o grafo é direcionado, <code>false</code> caso contrário. */
+    public Boolean eDirecionado() { return this.direcionado; }
+    /** getVertices
+     * @return Vértices do grafo para iterações e streams. */
+    public Collection<Vertice> getVertices() { return this.vertices.values(); }
+    /** getVertice
+     * @param id Identificador do vértice.
+     * @return Vértice com o identificador, <code>null</code> se não existir. */
+    Vertice getVertice(Integer id) { return this.vertices.get(id); }
+
     /**Construtor para grafos completos, se difere pelo tamanho pré-definido do HashMap de vértices e pelo método de adição de arestas.
      * @param nome        Nome do grafo.
      * @param nVertices   Número de vértices do grafo.*/
@@ -221,8 +386,8 @@ public class Grafo {
      * @param nome        Nome do grafo.
      * @param ponderado   Indica se o grafo é ponderado.
      * @param direcionado Indica se o grafo é direcionado.
-     * @param direcionado Indica se o grafo é direcionado.*/
-    private Grafo(String nome, Boolean ponderado, Boolean direcionado, Integer nVertices) { this.NOME = nome; this.vertices = new HashMap<Integer, Vertice>(nVertices); switch ((ponderado ? 1 : 0) + (direcionado ? 2 : 0)) { case 0 -> this.addAresta = new AddArestaNPND(); case 1 -> this.addAresta = new AddArestaPND(); case 2 -> this.addAresta = new AddArestaNPD(); case 3 -> this.addAresta = new AddArestaPD(); } this.ponderado = ponderado; this.direcionado = direcionado;}
+     * @param nVertices   Número de vértices do grafo.*/
+    Grafo(String nome, Boolean ponderado, Boolean direcionado, Integer nVertices) { this.NOME = nome; this.vertices = new HashMap<Integer, Vertice>(nVertices); switch ((ponderado ? 1 : 0) + (direcionado ? 2 : 0)) { case 0 -> this.addAresta = new AddArestaNPND(); case 1 -> this.addAresta = new AddArestaPND(); case 2 -> this.addAresta = new AddArestaNPD(); case 3 -> this.addAresta = new AddArestaPD(); } this.ponderado = ponderado; this.direcionado = direcionado;}
 
     @Override
     public String toString() {
@@ -235,7 +400,7 @@ public class Grafo {
     private class AddArestaNPND implements IAddAresta {
         /** Construtor privado para impedir a criação de instâncias fora da classe Grafo. */
         private AddArestaNPND() {}
-        @Override public Boolean addAresta(Vertice origem, Vertice destino) {
+        @Override public Boolean addAresta(Vertice origem, Vertice destino, Integer peso) {
             return origem.addAresta(new Aresta(destino)) && destino.addAresta(new Aresta(origem));
         }
     }
@@ -243,7 +408,7 @@ public class Grafo {
     private class AddArestaNPD implements IAddAresta {
         /** Construtor privado para impedir a criação de instâncias fora da classe Grafo. */
         private AddArestaNPD() {}
-        @Override public Boolean addAresta(Vertice origem, Vertice destino) {
+        @Override public Boolean addAresta(Vertice origem, Vertice destino, Integer peso) {
             return origem.addAresta(new Aresta(destino));
         }
     }
@@ -251,8 +416,9 @@ public class Grafo {
     private class AddArestaPND implements IAddAresta {
         /** Construtor privado para impedir a criação de instâncias fora da classe Grafo. */
         private AddArestaPND() {}
-        @Override public Boolean addAresta(Vertice origem, Vertice destino) {
-            int peso = App.lerInt("Peso da aresta: ");
+        @Override public Boolean addAresta(Vertice origem, Vertice destino, Integer peso) {
+            if (peso == null)
+                peso = App.lerInt("Peso da aresta: ");
             return origem.addAresta(new ArestaPonderada(destino, peso)) && destino.addAresta(new ArestaPonderada(origem, peso));
         }
     }
@@ -260,8 +426,8 @@ public class Grafo {
     private class AddArestaPD implements IAddAresta {
         /** Construtor privado para impedir a criação de instâncias fora da classe Grafo. */
         private AddArestaPD() {}
-        @Override public Boolean addAresta(Vertice origem, Vertice destino) {
-            return origem.addAresta(new ArestaPonderada(destino, App.lerInt("Peso da aresta: ")));
+        @Override public Boolean addAresta(Vertice origem, Vertice destino, Integer peso) {
+            return origem.addAresta(new ArestaPonderada(destino, peso != null ? peso : App.lerInt("Peso da aresta: ")));
         }
     }
 
@@ -276,16 +442,18 @@ public class Grafo {
         private Arquivo() { throw new InstantiationError("Classe nao instanciavel"); }
 
         /**
-         * Salva o grafo em um arquivo.
+         * Salva o grafo em um arquivo, escrevendo em blocos diretamente no canal.
          * 
-         * @param conteudo Conteúdo do arquivo.
-         * @param nome     Nome do arquivo.
+         * @param grafo   Grafo a ser salvo.
+         * @param caminho Caminho do arquivo.
+         * @param formato Formato de escrita.
          * @return <code>true</code> se o arquivo foi salvo, <code>false</code> se
          *         ocorreu algum erro.
          */
-        private static Boolean salvarGrafo(String conteudo, String nome) {
-            try (FileWriter fw = new FileWriter(PASTA + nome + TIPO)) {
-                fw.write(conteudo);
+        private static Boolean salvarGrafo(Grafo grafo, String caminho, EscritorGrafo.Formato formato) {
+            try (EscritorGrafo escritor = new EscritorGrafo(FileChannel.open(Path.of(caminho),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+                escritor.escrever(grafo, formato);
                 return true;
             } catch (IOException e) {
                 return false;
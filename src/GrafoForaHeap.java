@@ -0,0 +1,552 @@
+/*
+ *  Copyright 2023 Henrique Almeida
+ * 
+ * This file is part of Projeto grafos.
+ * 
+ * Projeto grafos is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * Projeto grafos is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ * 
+ * You should have received a copy of the GNU
+ * General Public License along with Projeto grafos. If not, see
+ * <https://www.gnu.org/licenses/>.
+*/
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Grafo armazenado fora do heap da JVM.
+ * <br><br>
+ * A tabela de vértices (endereçamento aberto por identificador) e as listas de
+ * adjacência (destino, peso e próxima aresta) ficam em blocos de memória direta,
+ * que o coletor de lixo não percorre nem copia. Arestas removidas são
+ * reaproveitadas por uma lista de posições livres. A memória é devolvida ao
+ * sistema quando o grafo é fechado com {@link #close()}; depois disso o grafo
+ * não pode mais ser usado.
+ * <br><br>
+ * A memória direta é limitada pela opção <code>-XX:MaxDirectMemorySize</code>
+ * da JVM, que por padrão vale o mesmo que <code>-Xmx</code>. Para grafos maiores
+ * que o heap é preciso aumentá-la, por exemplo
+ * <code>java -Xmx1g -XX:MaxDirectMemorySize=200g</code>. Cada vértice ocupa 16
+ * bytes da tabela (que fica entre 25% e 50% ocupada) e cada aresta 12 bytes, ou
+ * 24 bytes em grafos não direcionados. Os limites são 2<sup>29</sup> vértices e
+ * 2<sup>31</sup> - 1 posições de aresta; ultrapassá-los lança
+ * {@link IllegalStateException}.
+ * <br><br>
+ * As listas de adjacência não são indexadas: {@link #addAresta(Integer, Integer, Integer)},
+ * {@link #removerAresta(Integer, Integer)} e {@link #getPeso(Integer, Integer)}
+ * percorrem a lista da origem e custam O(grau). O carregamento por
+ * {@link CarregadorParalelo#carregarForaHeap(java.nio.file.Path...)} não faz
+ * essa verificação. Não há listas de arestas de entrada, logo
+ * {@link #removerVertice(Integer)} em grafo direcionado percorre a tabela e
+ * todas as listas para achar as arestas que chegam ao vértice, custando
+ * O(V + E); em grafo não direcionado o custo é a soma dos graus dos vizinhos.
+ * 
+ * @see IGrafo
+ * @author henrish0
+ */
+public class GrafoForaHeap implements IGrafo, AutoCloseable {
+    /** Estados de uma posição da tabela de vértices. */
+    private static final int VAZIO = 0, OCUPADO = 1, REMOVIDO = 2;
+
+    /** Campos de uma posição da tabela: estado, identificador, primeira aresta e grau. */
+    private static final int CAMPOS_VERTICE = 4;
+
+    /** Campos de uma aresta: destino, peso e próxima aresta. */
+    private static final int CAMPOS_ARESTA = 3;
+
+    /** Marca o fim de uma lista de arestas. */
+    private static final int NENHUMA = -1;
+
+    /** Capacidade máxima da tabela de vértices. */
+    private static final int CAPACIDADE_MAXIMA = 1 << 30;
+
+    /** Número máximo de posições de aresta, limitado pelos índices <code>int</code>. */
+    private static final int ARESTAS_MAXIMAS = Integer.MAX_VALUE;
+
+    /** Indica se o grafo é ponderado. */
+    private final Boolean ponderado;
+
+    /** Indica se o grafo é direcionado. */
+    private final Boolean direcionado;
+
+    /** Tabela de vértices. */
+    private BlocosInt tabela;
+
+    /** Número de posições da tabela, sempre potência de 2. */
+    private int capacidade;
+
+    /** Posições ocupadas da tabela. */
+    private int ocupados = 0;
+
+    /** Posições marcadas como removidas na tabela. */
+    private int removidos = 0;
+
+    /** Vetor de arestas. */
+    private BlocosInt arestas;
+
+    /** Próxima aresta nunca usada. */
+    private int proximaAresta = 0;
+
+    /** Início da lista de arestas livres. */
+    private int livre = NENHUMA;
+
+    /** Tamanho da lista de arestas livres. */
+    private int nLivres = 0;
+
+    /** Número de arestas do grafo; em grafos não direcionados cada par conta uma vez. */
+    private long nArestas = 0;
+
+    /**
+     * Construtor padrão.
+     * 
+     * @param ponderado   Indica se o grafo é ponderado.
+     * @param direcionado Indica se o grafo é direcionado.
+     */
+    public GrafoForaHeap(Boolean ponderado, Boolean direcionado) {
+        this(ponderado, direcionado, 1 << 10);
+    }
+
+    /**
+     * Construtor com número de vértices esperado.
+     * 
+     * @param ponderado   Indica se o grafo é ponderado.
+     * @param direcionado Indica se o grafo é direcionado.
+     * @param nVertices   Número de vértices esperado.
+     */
+    public GrafoForaHeap(Boolean ponderado, Boolean direcionado, Integer nVertices) {
+        this.ponderado = ponderado;
+        this.direcionado = direcionado;
+        this.capacidade = Math.min(Integer.highestOneBit(Math.max(nVertices, 8)), CAPACIDADE_MAXIMA / 4) * 4;
+        this.tabela = new BlocosInt();
+        this.tabela.garantir((long) this.capacidade * CAMPOS_VERTICE);
+        this.arestas = new BlocosInt();
+    }
+
+    @Override
+    public Boolean addVertice(Integer id) {
+        if (this.buscar(id) >= 0)
+            return false;
+        if ((this.ocupados + this.removidos + 1) * 2L > this.capacidade)
+            this.redimensionar();
+        this.inserir(this.tabela, this.capacidade, id, NENHUMA, 0);
+        this.ocupados++;
+        return true;
+    }
+
+    /**
+     * Adiciona uma aresta ao grafo. Em grafos ponderados a aresta recebe peso 1.
+     * 
+     * @param id1 Identificador do vértice de origem.
+     * @param id2 Identificador do vértice de destino.
+     * @return <code>true</code> se a aresta foi adicionada, <code>false</code> se a
+     *         aresta já existia.
+     */
+    @Override
+    public Boolean addAresta(Integer id1, Integer id2) {
+        return this.addAresta(id1, id2, 1);
+    }
+
+    @Override
+    public Boolean addAresta(Integer id1, Integer id2, Integer peso) {
+        int origem = this.buscar(id1), destino = this.buscar(id2);
+        if (origem < 0 || destino < 0 || id1.equals(id2) || this.procurar(origem, id2) != NENHUMA)
+            return false;
+        this.reservar(this.direcionado ? 1 : 2);
+        int p = this.ponderado && peso != null ? peso : 1;
+        this.ligar(origem, id2, p);
+        if (!this.direcionado)
+            this.ligar(destino, id1, p);
+        this.nArestas++;
+        return true;
+    }
+
+    @Override
+    public Boolean removerVertice(Integer id) {
+        int v = this.buscar(id);
+        if (v < 0)
+            return false;
+        long base = (long) v * CAMPOS_VERTICE;
+        for (int a = this.tabela.get(base + 2); a != NENHUMA;) {
+            int proxima = this.proxima(a);
+            if (!this.direcionado)
+                this.desligar(this.buscar(this.arestas.get((long) a * CAMPOS_ARESTA)), id);
+            this.liberar(a);
+            this.nArestas--;
+            a = proxima;
+        }
+        this.tabela.set(base, REMOVIDO);
+        this.ocupados--;
+        this.removidos++;
+        // Sem listas de entrada, as arestas que chegam ao vértice só são achadas percorrendo o grafo: O(V + E)
+        if (this.direcionado)
+            for (int t = 0; t < this.capacidade; t++)
+                if (this.tabela.get((long) t * CAMPOS_VERTICE) == OCUPADO && this.desligar(t, id))
+                    this.nArestas--;
+        return true;
+    }
+
+    @Override
+    public Boolean removerAresta(Integer id1, Integer id2) {
+        int origem = this.buscar(id1), destino = this.buscar(id2);
+        if (origem < 0 || destino < 0 || !this.desligar(origem, id2))
+            return false;
+        if (!this.direcionado)
+            this.desligar(destino, id1);
+        this.nArestas--;
+        return true;
+    }
+
+    @Override
+    public int[] vizinhos(Integer id) {
+        int v = this.buscar(id);
+        if (v < 0)
+            return null;
+        long base = (long) v * CAMPOS_VERTICE;
+        int[] out = new int[this.tabela.get(base + 3)];
+        int i = 0;
+        for (int a = this.tabela.get(base + 2); a != NENHUMA; a = this.proxima(a))
+            out[i++] = this.arestas.get((long) a * CAMPOS_ARESTA);
+        return out;
+    }
+
+    /**
+     * Liga a origem ao destino sem verificar se a aresta já existe e sem ligar o
+     * sentido inverso. Usado pelo carregador, que, como o formato nativo, traz os
+     * dois sentidos de cada aresta não direcionada; nesse caso a aresta é contada
+     * apenas no sentido do menor para o maior identificador.
+     * 
+     * @param id1  Identificador do vértice de origem.
+     * @param id2  Identificador do vértice de destino.
+     * @param peso Peso da aresta, ignorado em grafos não ponderados.
+     * @return <code>true</code> se a aresta foi adicionada, <code>false</code> se
+     *         algum dos vértices não existe.
+     */
+    Boolean anexar(int id1, int id2, int peso) {
+        int origem = this.buscar(id1);
+        if (origem < 0 || this.buscar(id2) < 0)
+            return false;
+        this.reservar(1);
+        this.ligar(origem, id2, this.ponderado ? peso : 1);
+        if (this.direcionado || id1 < id2)
+            this.nArestas++;
+        return true;
+    }
+
+    /**
+     * Verifica se um vértice existe.
+     * 
+     * @param id Identificador do vértice.
+     * @return <code>true</code> se o vértice existe, <code>false</code> caso
+     *         contrário.
+     */
+    public Boolean haVertice(Integer id) {
+        return this.buscar(id) >= 0;
+    }
+
+    /**
+     * Retorna o peso de uma aresta.
+     * 
+     * @param id1 Identificador do vértice de origem.
+     * @param id2 Identificador do vértice de destino.
+     * @return Peso da aresta, <code>null</code> se a aresta não existe ou se o
+     *         grafo não é ponderado.
+     */
+    public Integer getPeso(Integer id1, Integer id2) {
+        int v = this.buscar(id1);
+        int a = v < 0 || !this.ponderado ? NENHUMA : this.procurar(v, id2);
+        return a == NENHUMA ? null : this.arestas.get((long) a * CAMPOS_ARESTA + 1);
+    }
+
+    /**
+     * Libera imediatamente a memória do grafo; depois disso o grafo não pode mais
+     * ser usado. Se a JVM não permitir a liberação imediata, a memória é devolvida
+     * quando o coletor recolher os blocos.
+     */
+    @Override
+    public void close() {
+        if (this.tabela == null)
+            return;
+        this.tabela.liberar();
+        this.arestas.liberar();
+        this.tabela = null;
+        this.arestas = null;
+    }
+
+    // @formatter:off
+    /** getNumeroVertices
+     * @return Número de vértices do grafo. */
+    public int getNumeroVertices() { return this.ocupados; }
+    /** getNumeroArestas
+     * @return Número de arestas do grafo. */
+    public long getNumeroArestas() { return this.nArestas; }
+    /** ePonderado
+     * @return <code>true</code> se o grafo é ponderado, <code>false</code> caso contrário. */
+    public Boolean ePonderado() { return this.ponderado; }
+    /** eDirecionado
+     * @return <code>true</code> se o grafo é direcionado, <code>false</code> caso contrário. */
+    public Boolean eDirecionado() { return this.direcionado; } // @formatter:on
+
+    /**
+     * Procura a posição de um vértice na tabela.
+     * 
+     * @param id Identificador do vértice.
+     * @return Posição do vértice, <code>-1</code> se não existe.
+     */
+    private int buscar(int id) {
+        int mascara = this.capacidade - 1;
+        for (int i = GrafoForaHeap.espalhar(id) & mascara;; i = (i + 1) & mascara) {
+            long base = (long) i * CAMPOS_VERTICE;
+            int estado = this.tabela.get(base);
+            if (estado == VAZIO)
+                return -1;
+            if (estado == OCUPADO && this.tabela.get(base + 1) == id)
+                return i;
+        }
+    }
+
+    /**
+     * Insere um vértice na primeira posição livre da sua sequência de sondagem.
+     * 
+     * @param tabela     Tabela de destino.
+     * @param capacidade Capacidade da tabela.
+     * @param id         Identificador do vértice.
+     * @param primeira   Primeira aresta do vértice.
+     * @param grau       Grau do vértice.
+     */
+    private void inserir(BlocosInt tabela, int capacidade, int id, int primeira, int grau) {
+        int mascara = capacidade - 1, i = GrafoForaHeap.espalhar(id) & mascara;
+        while (tabela.get((long) i * CAMPOS_VERTICE) == OCUPADO)
+            i = (i + 1) & mascara;
+        long base = (long) i * CAMPOS_VERTICE;
+        if (tabela.get(base) == REMOVIDO)
+            this.removidos--;
+        tabela.set(base, OCUPADO);
+        tabela.set(base + 1, id);
+        tabela.set(base + 2, primeira);
+        tabela.set(base + 3, grau);
+    }
+
+    /**
+     * Reconstrói a tabela de vértices sem as posições removidas, dobrando a
+     * capacidade se necessário. As arestas guardam identificadores e não
+     * posições, logo não precisam ser alteradas.
+     */
+    private void redimensionar() {
+        int nova = this.capacidade;
+        while ((this.ocupados + 1) * 4L > nova && nova < CAPACIDADE_MAXIMA)
+            nova *= 2;
+        if ((this.ocupados + 1) * 2L > nova)
+            throw new IllegalStateException("Limite de " + CAPACIDADE_MAXIMA / 2 + " vertices atingido");
+        BlocosInt tabela = new BlocosInt();
+        tabela.garantir((long) nova * CAMPOS_VERTICE);
+        for (int i = 0; i < this.capacidade; i++) {
+            long base = (long) i * CAMPOS_VERTICE;
+            if (this.tabela.get(base) == OCUPADO)
+                this.inserir(tabela, nova, this.tabela.get(base + 1), this.tabela.get(base + 2),
+                        this.tabela.get(base + 3));
+        }
+        this.tabela.liberar();
+        this.tabela = tabela;
+        this.capacidade = nova;
+        this.removidos = 0;
+    }
+
+    /**
+     * Verifica se ainda há posições de aresta para as próximas ligações.
+     * 
+     * @param n Número de posições necessárias.
+     */
+    private void reservar(int n) {
+        if ((long) ARESTAS_MAXIMAS - this.proximaAresta + this.nLivres < n)
+            throw new IllegalStateException("Limite de " + ARESTAS_MAXIMAS + " posicoes de aresta atingido");
+    }
+
+    /**
+     * Adiciona uma aresta no início da lista de um vértice.
+     * 
+     * @param v       Posição do vértice de origem.
+     * @param destino Identificador do vértice de destino.
+     * @param peso    Peso da aresta.
+     */
+    private void ligar(int v, int destino, int peso) {
+        int a;
+        if (this.livre != NENHUMA) {
+            a = this.livre;
+            this.livre = this.proxima(a);
+            this.nLivres--;
+        } else {
+            a = this.proximaAresta++;
+            this.arestas.garantir((long) this.proximaAresta * CAMPOS_ARESTA);
+        }
+        long base = (long) v * CAMPOS_VERTICE, aresta = (long) a * CAMPOS_ARESTA;
+        this.arestas.set(aresta, destino);
+        this.arestas.set(aresta + 1, peso);
+        this.arestas.set(aresta + 2, this.tabela.get(base + 2));
+        this.tabela.set(base + 2, a);
+        this.tabela.set(base + 3, this.tabela.get(base + 3) + 1);
+    }
+
+    /**
+     * Retira uma aresta da lista de um vértice e a devolve à lista livre.
+     * 
+     * @param v       Posição do vértice de origem.
+     * @param destino Identificador do vértice de destino.
+     * @return <code>true</code> se a aresta foi retirada, <code>false</code> se não
+     *         existia.
+     */
+    private boolean desligar(int v, int destino) {
+        long base = (long) v * CAMPOS_VERTICE;
+        for (int anterior = NENHUMA, a = this.tabela.get(base + 2); a != NENHUMA; anterior = a, a = this.proxima(a))
+            if (this.arestas.get((long) a * CAMPOS_ARESTA) == destino) {
+                if (anterior == NENHUMA)
+                    this.tabela.set(base + 2, this.proxima(a));
+                else
+                    this.arestas.set((long) anterior * CAMPOS_ARESTA + 2, this.proxima(a));
+                this.tabela.set(base + 3, this.tabela.get(base + 3) - 1);
+                this.liberar(a);
+                return true;
+            }
+        return false;
+    }
+
+    /**
+     * Procura uma aresta na lista de um vértice.
+     * 
+     * @param v       Posição do vértice de origem.
+     * @param destino Identificador do vértice de destino.
+     * @return Índice da aresta, {@link #NENHUMA} se não existe.
+     */
+    private int procurar(int v, int destino) {
+        for (int a = this.tabela.get((long) v * CAMPOS_VERTICE + 2); a != NENHUMA; a = this.proxima(a))
+            if (this.arestas.get((long) a * CAMPOS_ARESTA) == destino)
+                return a;
+        return NENHUMA;
+    }
+
+    /**
+     * Devolve uma aresta à lista livre.
+     * 
+     * @param a Índice da aresta.
+     */
+    private void liberar(int a) {
+        this.arestas.set((long) a * CAMPOS_ARESTA + 2, this.livre);
+        this.livre = a;
+        this.nLivres++;
+    }
+
+    /** proxima
+     * @param a Índice da aresta.
+     * @return Índice da próxima aresta da lista. */
+    private int proxima(int a) { return this.arestas.get((long) a * CAMPOS_ARESTA + 2); }
+
+    /**
+     * Espalha os bits de um identificador para a tabela de vértices.
+     * 
+     * @param id Identificador do vértice.
+     * @return Valor espalhado.
+     */
+    private static int espalhar(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Vetor de inteiros fora do heap, formado por blocos de memória direta de
+     * tamanho fixo e endereçado por <code>long</code>, o que evita o limite de
+     * 2 GB de um único buffer.
+     */
+    private static class BlocosInt {
+        /** <code>sun.misc.Unsafe.invokeCleaner</code>, que libera um buffer direto na hora; <code>null</code> se indisponível. */
+        private static final MethodHandle LIBERADOR = BlocosInt.liberador();
+        /** Bits do índice dentro de um bloco. */
+        private static final int BITS = 20;
+        /** Inteiros por bloco (4 MB). */
+        private static final int TAMANHO_BLOCO = 1 << BITS;
+        /** Máscara do índice dentro de um bloco. */
+        private static final long MASCARA = TAMANHO_BLOCO - 1;
+
+        /** Blocos alocados. */
+        private IntBuffer[] blocos = new IntBuffer[0];
+        /** Buffers de origem dos blocos, necessários para liberá-los. */
+        private ByteBuffer[] buffers = new ByteBuffer[0];
+
+        /**
+         * Garante espaço para pelo menos <code>n</code> inteiros. Blocos novos
+         * começam zerados.
+         * 
+         * @param n Quantidade de inteiros.
+         */
+        private void garantir(long n) {
+            int necessarios = (int) ((n + TAMANHO_BLOCO - 1) >>> BITS);
+            if (necessarios <= this.blocos.length)
+                return;
+            int atual = this.blocos.length;
+            this.blocos = Arrays.copyOf(this.blocos, necessarios);
+            this.buffers = Arrays.copyOf(this.buffers, necessarios);
+            for (int i = atual; i < necessarios; i++) {
+                this.buffers[i] = ByteBuffer.allocateDirect(TAMANHO_BLOCO * Integer.BYTES).order(ByteOrder.nativeOrder());
+                this.blocos[i] = this.buffers[i].asIntBuffer();
+            }
+        }
+
+        /**
+         * Libera a memória de todos os blocos. Os blocos são descartados antes,
+         * assim um acesso posterior falha em vez de ler memória já devolvida.
+         */
+        private void liberar() {
+            ByteBuffer[] buffers = this.buffers;
+            this.blocos = new IntBuffer[0];
+            this.buffers = new ByteBuffer[0];
+            if (LIBERADOR != null)
+                for (ByteBuffer b : buffers)
+                    try {
+                        LIBERADOR.invokeExact(b);
+                    } catch (Throwable e) {}
+        }
+
+        /**
+         * Obtém o método que libera buffers diretos imediatamente. Está em
+         * <code>sun.misc.Unsafe</code> (módulo <code>jdk.unsupported</code>), aberto
+         * à reflexão sem opções adicionais da JVM.
+         * 
+         * @return Método ligado à instância de <code>Unsafe</code>,
+         *         <code>null</code> se indisponível.
+         */
+        private static MethodHandle liberador() {
+            try {
+                Class<?> unsafe = Class.forName("sun.misc.Unsafe");
+                Field instancia = unsafe.getDeclaredField("theUnsafe");
+                instancia.setAccessible(true);
+                return MethodHandles.lookup()
+                        .findVirtual(unsafe, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                        .bindTo(instancia.get(null));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        /** get
+         * @param i Índice.
+         * @return Valor na posição. */
+        private int get(long i) { return this.blocos[(int) (i >>> BITS)].get((int) (i & MASCARA)); }
+        /** set
+         * @param i     Índice.
+         * @param valor Valor a ser guardado. */
+        private void set(long i, int valor) { this.blocos[(int) (i >>> BITS)].put((int) (i & MASCARA), valor); }
+    }
+
+}
@@ -35,8 +35,10 @@ interface IAddAresta {
      * 
      * @param origem Vértice de origem da aresta.
      * @param destino Vértice de destino da aresta.
+     * @param peso Peso da aresta, ignorado em grafos não ponderados. Se
+     *             <code>null</code> em grafos ponderados, é lido do console.
      * @return <code>true</code> se a aresta foi adicionada, <code>false</code> se a
      *         aresta já existia.
      */
-    Boolean addAresta(Vertice origem, Vertice destino);
+    Boolean addAresta(Vertice origem, Vertice destino, Integer peso);
 }
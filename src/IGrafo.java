@@ -0,0 +1,88 @@
+/*
+ *  Copyright 2023 Henrique Almeida
+ * 
+ * This file is part of Projeto grafos.
+ * 
+ * Projeto grafos is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * Projeto grafos is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ * 
+ * You should have received a copy of the GNU
+ * General Public License along with Projeto grafos. If not, see
+ * <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Interface que define as operações básicas de um grafo, permite abstração
+ * entre formas diferentes de armazenamento.
+ * 
+ * @see Grafo
+ * @see GrafoForaHeap
+ * @author henrish0
+ */
+public interface IGrafo {
+    /**
+     * Adiciona um vértice ao grafo.
+     * 
+     * @param id Identificador do vértice.
+     * @return <code>true</code> se o vértice foi adicionado, <code>false</code> se
+     *         o vértice já existia.
+     */
+    public Boolean addVertice(Integer id);
+
+    /**
+     * Adiciona uma aresta ao grafo.
+     * 
+     * @param id1 Identificador do vértice de origem.
+     * @param id2 Identificador do vértice de destino.
+     * @return <code>true</code> se a aresta foi adicionada, <code>false</code> se a
+     *         aresta já existia.
+     */
+    public Boolean addAresta(Integer id1, Integer id2);
+
+    /**
+     * Adiciona uma aresta com peso definido ao grafo.
+     * 
+     * @param id1  Identificador do vértice de origem.
+     * @param id2  Identificador do vértice de destino.
+     * @param peso Peso da aresta, ignorado em grafos não ponderados.
+     * @return <code>true</code> se a aresta foi adicionada, <code>false</code> se a
+     *         aresta já existia.
+     */
+    public Boolean addAresta(Integer id1, Integer id2, Integer peso);
+
+    /**
+     * Remove um vértice do grafo.
+     * 
+     * @param id Identificador do vértice.
+     * @return <code>true</code> se o vértice foi removido, <code>false</code> se o
+     *         vértice não existia.
+     */
+    public Boolean removerVertice(Integer id);
+
+    /**
+     * Remove uma aresta do grafo.
+     * 
+     * @param id1 Identificador do vértice de origem.
+     * @param id2 Identificador do vértice de destino.
+     * @return <code>true</code> se a aresta foi removida, <code>false</code> se a
+     *         aresta não existia.
+     */
+    public Boolean removerAresta(Integer id1, Integer id2);
+
+    /**
+     * Retorna os vizinhos de um vértice.
+     * 
+     * @param id Identificador do vértice.
+     * @return Identificadores dos vizinhos, <code>null</code> se o vértice não
+     *         existe.
+     */
+    public int[] vizinhos(Integer id);
+
+}
@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2023 Henrique Almeida
+ * 
+ * This file is part of Projeto grafos.
+ * 
+ * Projeto grafos is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * Projeto grafos is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ * 
+ * You should have received a copy of the GNU
+ * General Public License along with Projeto grafos. If not, see
+ * <https://www.gnu.org/licenses/>.
+*/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Leitor dos itens <code>a[-b[-c]];</code> do formato nativo, usado pelo
+ * {@link CarregadorParalelo}, pelos fragmentos de {@link TrabalhadorShard} e
+ * pelo mapa de donos de {@link CoordenadorShards}.
+ * <br><br>
+ * Um <code>-</code> antes dos dígitos é sinal; depois deles separa campos. Um
+ * item termina em <code>;</code>, no fim da linha ou no fim da leitura. A
+ * leitura usa posições absolutas do canal, logo vários leitores podem
+ * percorrer trechos diferentes do mesmo arquivo ao mesmo tempo, e pode ser
+ * limitada a uma posição final.
+ * 
+ * @author henrish0
+ */
+class LeitorItens {
+    /** Canal do arquivo. */
+    private final FileChannel CANAL;
+
+    /** Buffer de leitura. */
+    private final ByteBuffer BUFFER = ByteBuffer.allocate(1 << 16);
+
+    /** Posição a partir da qual nenhum byte é lido. */
+    private final long LIMITE;
+
+    /** Posição do próximo byte a ser lido. */
+    private long posicao;
+
+    /** Caractere que encerrou o último item: <code>;</code>, fim de linha ou <code>-1</code>. */
+    private int terminador = -1;
+
+    /**
+     * Construtor padrão. Lê o arquivo inteiro a partir do início.
+     * 
+     * @param canal Canal do arquivo.
+     */
+    LeitorItens(FileChannel canal) {
+        this(canal, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Construtor com região de leitura.
+     * 
+     * @param canal   Canal do arquivo.
+     * @param posicao Posição inicial de leitura.
+     * @param limite  Posição final (exclusiva) de leitura.
+     */
+    LeitorItens(FileChannel canal, long posicao, long limite) {
+        this.CANAL = canal;
+        this.posicao = posicao;
+        this.LIMITE = limite;
+        this.BUFFER.limit(0);
+    }
+
+    /**
+     * Lê o próximo byte.
+     * 
+     * @return Byte lido, ou <code>-1</code> no fim do arquivo ou do limite.
+     * @throws IOException se ocorrer erro de leitura.
+     */
+    int ler() throws IOException {
+        if (this.posicao >= this.LIMITE)
+            return -1;
+        if (!this.BUFFER.hasRemaining()) {
+            this.BUFFER.clear();
+            int n = this.CANAL.read(this.BUFFER, this.posicao);
+            this.BUFFER.flip();
+            if (n <= 0)
+                return -1;
+        }
+        this.posicao++;
+        return this.BUFFER.get() & 0xFF;
+    }
+
+    /**
+     * Lê o próximo item. Campos além do tamanho do vetor são contados, mas não
+     * guardados.
+     * 
+     * @param campo Vetor onde os campos são guardados.
+     * @return Número de campos do item, <code>0</code> se o item é vazio.
+     * @throws IOException se ocorrer erro de leitura.
+     */
+    int lerItem(int[] campo) throws IOException {
+        int n = 0, valor = 0;
+        boolean negativo = false, digitos = false;
+        for (int c = this.ler();; c = this.ler()) {
+            if (c >= '0' && c <= '9') {
+                valor = valor * 10 + (c - '0');
+                digitos = true;
+            } else if (c == '-' && !digitos) {
+                negativo = true;
+            } else if (c == '-' || c == ';' || c == '\n' || c == -1) {
+                if (digitos && n < campo.length)
+                    campo[n] = negativo ? -valor : valor;
+                n += digitos ? 1 : 0;
+                valor = 0;
+                negativo = digitos = false;
+                if (c != '-') {
+                    this.terminador = c;
+                    return n;
+                }
+            }
+        }
+    }
+
+    // @formatter:off
+    /** getPosicao
+     * @return Posição do próximo byte a ser lido. */
+    long getPosicao() { return this.posicao; }
+    /** getTerminador
+     * @return Caractere que encerrou o último item: <code>;</code>, fim de linha ou <code>-1</code>. */
+    int getTerminador() { return this.terminador; } // @formatter:on
+}
@@ -0,0 +1,406 @@
+/*
+ *  Copyright 2023 Henrique Almeida
+ * 
+ * This file is part of Projeto grafos.
+ * 
+ * Projeto grafos is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * Projeto grafos is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ * 
+ * You should have received a copy of the GNU
+ * General Public License along with Projeto grafos. If not, see
+ * <https://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Ordenação topológica, detecção de ciclos e caminhos em grafos direcionados
+ * acíclicos (DAG).
+ * <br><br>
+ * A ordenação usa o algoritmo de Kahn sobre a {@link AdjacenciaCompacta}: os
+ * vértices sem arestas de entrada são retirados em ordem e cada retirada reduz
+ * o grau de entrada dos vizinhos. A variante paralela retira um nível inteiro
+ * de cada vez. Os menores e maiores caminhos são calculados em tempo linear
+ * relaxando as arestas na ordem topológica; arestas sem peso valem 1. Grafos
+ * não direcionados são recusados: cada aresta existe nos dois sentidos e
+ * formaria um ciclo de dois vértices.
+ * 
+ * @see <a href="https://pt.wikipedia.org/wiki/Ordena%C3%A7%C3%A3o_topol%C3%B3gica">Ordenação topológica</a>
+ * @see AdjacenciaCompacta
+ * @author henrish0
+ */
+public class OrdenacaoTopologica {
+    /** Tamanho mínimo de um nível para ser processado em paralelo. */
+    private static final int NIVEL_PARALELO = 1 << 12;
+
+    /** Adjacência do grafo. */
+    private final AdjacenciaCompacta ADJ;
+
+    /** Grau de entrada de cada vértice. */
+    private final int[] ENTRADA;
+
+    /** Índices em ordem topológica, calculados sob demanda. */
+    private int[] ordem;
+
+    /** Posição de cada índice em <code>ordem</code>. */
+    private int[] posicao;
+
+    /**
+     * Construtor padrão.
+     * 
+     * @param grafo Grafo direcionado analisado.
+     * @throws IllegalArgumentException se o grafo não é direcionado.
+     */
+    public OrdenacaoTopologica(Grafo grafo) {
+        if (!grafo.eDirecionado())
+            throw new IllegalArgumentException("Ordenacao topologica exige grafo direcionado");
+        this.ADJ = new AdjacenciaCompacta(grafo);
+        this.ENTRADA = new int[this.ADJ.getN()];
+        for (int w : this.ADJ.getDestinos())
+            this.ENTRADA[w]++;
+    }
+
+    /**
+     * Ordena os vértices topologicamente pelo algoritmo de Kahn. A fila começa
+     * pelos vértices sem arestas de entrada, em ordem crescente de identificador.
+     * 
+     * @return Identificadores em ordem topológica, <code>null</code> se o grafo
+     *         tem ciclo.
+     */
+    public int[] ordenar() {
+        int[] ordem = this.ordem();
+        return ordem == null ? null : this.ids(ordem, 0, ordem.length);
+    }
+
+    /**
+     * Ordena os vértices topologicamente nível por nível: o nível 0 contém os
+     * vértices sem arestas de entrada, e o nível <code>k</code> os que só
+     * dependem de níveis anteriores. Os vértices de cada nível são processados em
+     * paralelo.
+     * 
+     * @return Identificadores de cada nível, em ordem crescente dentro do nível;
+     *         <code>null</code> se o grafo tem ciclo.
+     */
+    public int[][] niveis() {
+        int n = this.ADJ.getN();
+        int[] inicio = this.ADJ.getInicio(), destinos = this.ADJ.getDestinos();
+        AtomicIntegerArray grau = new AtomicIntegerArray(this.ENTRADA);
+        int[] ordem = new int[n];
+        AtomicInteger fim = new AtomicInteger();
+        for (int v = 0; v < n; v++)
+            if (this.ENTRADA[v] == 0)
+                ordem[fim.getAndIncrement()] = v;
+        int[] limites = new int[n + 1];
+        int nNiveis = 0;
+        for (int a = 0, b = fim.get(); a < b; a = b, b = fim.get()) {
+            limites[++nNiveis] = b;
+            IntStream nivel = IntStream.range(a, b);
+            (b - a >= NIVEL_PARALELO ? nivel.parallel() : nivel).forEach(j -> {
+                int u = ordem[j];
+                for (int i = inicio[u]; i < inicio[u + 1]; i++)
+                    if (grau.decrementAndGet(destinos[i]) == 0)
+                        ordem[fim.getAndIncrement()] = destinos[i];
+            });
+        }
+        if (fim.get() < n)
+            return null;
+        int[][] out = new int[nNiveis][];
+        for (int k = 0; k < nNiveis; k++) {
+            Arrays.sort(ordem, limites[k], limites[k + 1]);
+            out[k] = this.ids(ordem, limites[k], limites[k + 1]);
+        }
+        return out;
+    }
+
+    /**
+     * Verifica se o grafo tem ciclo.
+     * 
+     * @return <code>true</code> se há ciclo, <code>false</code> se o grafo é
+     *         acíclico.
+     */
+    public Boolean temCiclo() {
+        return this.ordem() == null;
+    }
+
+    /**
+     * Encontra um ciclo do grafo por busca em profundidade iterativa.
+     * 
+     * @return Identificadores dos vértices do ciclo, na ordem das arestas; o
+     *         último vértice tem aresta para o primeiro. <code>null</code> se o
+     *         grafo é acíclico.
+     */
+    public int[] ciclo() {
+        if (this.ordem() != null)
+            return null;
+        int n = this.ADJ.getN();
+        int[] inicio = this.ADJ.getInicio(), destinos = this.ADJ.getDestinos();
+        // 0 = não visitado, 1 = na pilha, 2 = concluído
+        byte[] estado = new byte[n];
+        int[] pilha = new int[n], aresta = new int[n];
+        for (int s = 0; s < n; s++) {
+            if (estado[s] != 0)
+                continue;
+            int topo = 0;
+            pilha[0] = s;
+            aresta[0] = inicio[s];
+            estado[s] = 1;
+            while (topo >= 0) {
+                int u = pilha[topo];
+                if (aresta[topo] == inicio[u + 1]) {
+                    estado[u] = 2;
+                    topo--;
+                    continue;
+                }
+                int w = destinos[aresta[topo]++];
+                if (estado[w] == 1) {
+                    int k = topo;
+                    while (pilha[k] != w)
+                        k--;
+                    return this.ids(pilha, k, topo + 1);
+                }
+                if (estado[w] == 0) {
+                    pilha[++topo] = w;
+                    aresta[topo] = inicio[w];
+                    estado[w] = 1;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Calcula os menores caminhos a partir de um vértice.
+     * 
+     * @param origem Identificador do vértice de origem.
+     * @return Distância de cada vértice na ordem de {@link #getIds()},
+     *         {@link Long#MAX_VALUE} se inalcançável; <code>null</code> se a
+     *         origem não existe ou o grafo tem ciclo.
+     */
+    public long[] menoresDistancias(Integer origem) {
+        return this.relaxar(origem, false, null);
+    }
+
+    /**
+     * Calcula os maiores caminhos a partir de um vértice.
+     * 
+     * @param origem Identificador do vértice de origem.
+     * @return Distância de cada vértice na ordem de {@link #getIds()},
+     *         {@link Long#MIN_VALUE} se inalcançável; <code>null</code> se a
+     *         origem não existe ou o grafo tem ciclo.
+     */
+    public long[] maioresDistancias(Integer origem) {
+        return this.relaxar(origem, true, null);
+    }
+
+    /**
+     * Retorna o menor caminho entre dois vértices.
+     * 
+     * @param origem  Identificador do vértice de origem.
+     * @param destino Identificador do vértice de destino.
+     * @return Identificadores dos vértices do caminho, <code>null</code> se não há
+     *         caminho, algum vértice não existe ou o grafo tem ciclo.
+     */
+    public int[] menorCaminho(Integer origem, Integer destino) {
+        return this.caminho(origem, destino, false);
+    }
+
+    /**
+     * Retorna o maior caminho entre dois vértices.
+     * 
+     * @param origem  Identificador do vértice de origem.
+     * @param destino Identificador do vértice de destino.
+     * @return Identificadores dos vértices do caminho, <code>null</code> se não há
+     *         caminho, algum vértice não existe ou o grafo tem ciclo.
+     */
+    public int[] maiorCaminho(Integer origem, Integer destino) {
+        return this.caminho(origem, destino, true);
+    }
+
+    /**
+     * Retorna o caminho crítico: o caminho de maior comprimento do grafo,
+     * partindo de qualquer vértice. Todos os vértices começam com distância 0, e
+     * cada um herda a maior distância entre seus predecessores.
+     * 
+     * @return Identificadores dos vértices do caminho, <code>null</code> se o
+     *         grafo tem ciclo.
+     */
+    public int[] caminhoCritico() {
+        int[] ordem = this.ordem();
+        if (ordem == null)
+            return null;
+        int n = ordem.length;
+        int[] inicio = this.ADJ.getInicio(), destinos = this.ADJ.getDestinos(), pesos = this.ADJ.getPesos();
+        int[] anterior = new int[n];
+        long[] dist = new long[n];
+        Arrays.fill(anterior, -1);
+        int fim = -1;
+        for (int u : ordem) {
+            if (fim < 0 || dist[u] > dist[fim])
+                fim = u;
+            for (int i = inicio[u]; i < inicio[u + 1]; i++) {
+                long d = dist[u] + (pesos == null ? 1 : pesos[i]);
+                if (d > dist[destinos[i]]) {
+                    dist[destinos[i]] = d;
+                    anterior[destinos[i]] = u;
+                }
+            }
+        }
+        return fim < 0 ? new int[0] : this.reconstruir(anterior, fim);
+    }
+
+    /**
+     * Calcula o comprimento de um caminho, somando os pesos das arestas.
+     * 
+     * @param caminho Identificadores dos vértices do caminho.
+     * @return Comprimento do caminho, <code>null</code> se alguma aresta não
+     *         existe.
+     */
+    public Long comprimento(int[] caminho) {
+        int[] inicio = this.ADJ.getInicio(), destinos = this.ADJ.getDestinos(), pesos = this.ADJ.getPesos();
+        long out = 0;
+        for (int k = 0; k + 1 < caminho.length; k++) {
+            int u = this.ADJ.indice(caminho[k]), v = this.ADJ.indice(caminho[k + 1]);
+            int i = u < 0 || v < 0 ? -1 : Arrays.binarySearch(destinos, inicio[u], inicio[u + 1], v);
+            if (i < 0)
+                return null;
+            out += pesos == null ? 1 : pesos[i];
+        }
+        return out;
+    }
+
+    /** getIds
+     * @return Identificadores dos vértices na ordem usada pelos vetores de distância. */
+    public int[] getIds() { return this.ADJ.getIds(); }
+
+    /**
+     * Calcula a ordem topológica dos índices pelo algoritmo de Kahn, uma única
+     * vez.
+     * 
+     * @return Índices em ordem topológica, <code>null</code> se o grafo tem
+     *         ciclo.
+     */
+    private int[] ordem() {
+        if (this.posicao != null)
+            return this.ordem;
+        int n = this.ADJ.getN();
+        int[] inicio = this.ADJ.getInicio(), destinos = this.ADJ.getDestinos();
+        int[] grau = this.ENTRADA.clone(), ordem = new int[n];
+        int fim = 0;
+        for (int v = 0; v < n; v++)
+            if (grau[v] == 0)
+                ordem[fim++] = v;
+        // A própria saída serve de fila
+        for (int j = 0; j < fim; j++) {
+            int u = ordem[j];
+            for (int i = inicio[u]; i < inicio[u + 1]; i++)
+                if (--grau[destinos[i]] == 0)
+                    ordem[fim++] = destinos[i];
+        }
+        this.posicao = new int[n];
+        for (int j = 0; j < fim; j++)
+            this.posicao[ordem[j]] = j;
+        return this.ordem = fim == n ? ordem : null;
+    }
+
+    /**
+     * Relaxa as arestas na ordem topológica a partir de um vértice.
+     * 
+     * @param origem   Identificador do vértice de origem.
+     * @param maior    <code>true</code> para maiores caminhos,
+     *                 <code>false</code> para menores.
+     * @param anterior Vetor preenchido com o predecessor de cada vértice no
+     *                 caminho, ou <code>null</code>.
+     * @return Distância de cada vértice, <code>null</code> se a origem não existe
+     *         ou o grafo tem ciclo.
+     */
+    private long[] relaxar(Integer origem, boolean maior, int[] anterior) {
+        int[] ordem = this.ordem();
+        int s = this.ADJ.indice(origem);
+        if (ordem == null || s < 0)
+            return null;
+        int[] inicio = this.ADJ.getInicio(), destinos = this.ADJ.getDestinos(), pesos = this.ADJ.getPesos();
+        long inalcancavel = maior ? Long.MIN_VALUE : Long.MAX_VALUE;
+        long[] dist = new long[ordem.length];
+        Arrays.fill(dist, inalcancavel);
+        dist[s] = 0;
+        // Vértices antes da origem na ordem topológica não são alcançáveis
+        for (int j = this.posicao[s]; j < ordem.length; j++) {
+            int u = ordem[j];
+            if (dist[u] == inalcancavel)
+                continue;
+            for (int i = inicio[u]; i < inicio[u + 1]; i++) {
+                int w = destinos[i];
+                long d = dist[u] + (pesos == null ? 1 : pesos[i]);
+                if (dist[w] == inalcancavel || (maior ? d > dist[w] : d < dist[w])) {
+                    dist[w] = d;
+                    if (anterior != null)
+                        anterior[w] = u;
+                }
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * Calcula o menor ou maior caminho entre dois vértices.
+     * 
+     * @param origem  Identificador do vértice de origem.
+     * @param destino Identificador do vértice de destino.
+     * @param maior   <code>true</code> para o maior caminho, <code>false</code>
+     *                para o menor.
+     * @return Identificadores dos vértices do caminho, <code>null</code> se não há
+     *         caminho.
+     */
+    private int[] caminho(Integer origem, Integer destino, boolean maior) {
+        int t = this.ADJ.indice(destino);
+        int[] anterior = new int[this.ADJ.getN()];
+        Arrays.fill(anterior, -1);
+        long[] dist = t < 0 ? null : this.relaxar(origem, maior, anterior);
+        if (dist == null || dist[t] == (maior ? Long.MIN_VALUE : Long.MAX_VALUE))
+            return null;
+        return this.reconstruir(anterior, t);
+    }
+
+    /**
+     * Reconstrói um caminho seguindo os predecessores até o início.
+     * 
+     * @param anterior Predecessor de cada índice, <code>-1</code> no início.
+     * @param fim      Índice do último vértice.
+     * @return Identificadores dos vértices do caminho.
+     */
+    private int[] reconstruir(int[] anterior, int fim) {
+        int tamanho = 1;
+        for (int v = fim; anterior[v] >= 0; v = anterior[v])
+            tamanho++;
+        int[] out = new int[tamanho];
+        for (int v = fim, k = tamanho - 1; k >= 0; v = anterior[v], k--)
+            out[k] = this.ADJ.getID(v);
+        return out;
+    }
+
+    /**
+     * Converte um trecho de índices em identificadores.
+     * 
+     * @param indices Vetor de índices.
+     * @param de      Início do trecho, inclusivo.
+     * @param ate     Fim do trecho, exclusivo.
+     * @return Identificadores do trecho.
+     */
+    private int[] ids(int[] indices, int de, int ate) {
+        int[] out = new int[ate - de];
+        for (int k = de; k < ate; k++)
+            out[k - de] = this.ADJ.getID(indices[k]);
+        return out;
+    }
+
+}
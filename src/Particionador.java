@@ -0,0 +1,220 @@
+/*
+ *  Copyright 2023 Henrique Almeida
+ * 
+ * This file is part of Projeto grafos.
+ * 
+ * Projeto grafos is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * Projeto grafos is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ * 
+ * You should have received a copy of the GNU
+ * General Public License along with Projeto grafos. If not, see
+ * <https://www.gnu.org/licenses/>.
+*/
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Divide um grafo em fragmentos e os salva em disco.
+ * <br><br>
+ * Cada fragmento <code>i</code> é salvo em <code>&lt;nome&gt;_&lt;i&gt;.csv</code>
+ * no formato nativo, com seus vértices e todas as arestas que saem deles,
+ * inclusive as de fronteira (que chegam a vértices de outros fragmentos). O dono
+ * de cada vértice é salvo em <code>&lt;nome&gt;.part</code>. Carregar a pasta
+ * inteira com {@link CarregadorParalelo} reconstrói o grafo original; por isso
+ * salvar apaga antes os fragmentos de um particionamento anterior do mesmo grafo.
+ * 
+ * @see CoordenadorShards
+ * @author henrish0
+ */
+public class Particionador {
+    /** Folga permitida acima do tamanho médio de um fragmento. */
+    private static final double FOLGA = 1.03;
+
+    /** Grafo particionado. */
+    private final Grafo GRAFO;
+
+    /** Adjacência não direcionada do grafo. */
+    private final AdjacenciaCompacta ADJ;
+
+    /** Número de fragmentos. */
+    private final int K;
+
+    /**
+     * Construtor padrão.
+     * 
+     * @param grafo Grafo a ser particionado.
+     * @param k     Número de fragmentos.
+     */
+    public Particionador(Grafo grafo, int k) {
+        AdjacenciaCompacta adj = new AdjacenciaCompacta(grafo);
+        this.GRAFO = grafo;
+        this.ADJ = grafo.eDirecionado() ? adj.simetrica() : adj;
+        this.K = Math.max(k, 1);
+    }
+
+    /**
+     * Particiona os vértices pelo espalhamento do identificador.
+     * 
+     * @return Fragmento de cada vértice, na ordem de {@link #getIds()}.
+     */
+    public int[] porHash() {
+        int[] out = new int[this.ADJ.getN()];
+        for (int v = 0; v < out.length; v++)
+            out[v] = Particionador.espalhar(this.ADJ.getID(v), this.K);
+        return out;
+    }
+
+    /**
+     * Particiona os vértices por propagação de rótulos balanceada: partindo do
+     * espalhamento, cada vértice migra para o fragmento mais frequente entre seus
+     * vizinhos, desde que o fragmento de destino não ultrapasse a capacidade. Isso
+     * reduz o número de arestas de fronteira.
+     * 
+     * @param iteracoes Número máximo de passadas sobre os vértices.
+     * @return Fragmento de cada vértice, na ordem de {@link #getIds()}.
+     */
+    public int[] propagacaoRotulos(int iteracoes) {
+        int n = this.ADJ.getN();
+        int[] out = this.porHash(), tamanho = new int[this.K], contagem = new int[this.K];
+        int[] inicio = this.ADJ.getInicio(), destinos = this.ADJ.getDestinos();
+        int capacidade = (int) Math.ceil((double) n / this.K * FOLGA);
+        for (int v = 0; v < n; v++)
+            tamanho[out[v]]++;
+        for (int it = 0; it < iteracoes; it++) {
+            int movidos = 0;
+            for (int v = 0; v < n; v++) {
+                for (int i = inicio[v]; i < inicio[v + 1]; i++)
+                    contagem[out[destinos[i]]]++;
+                int atual = out[v], melhor = atual;
+                for (int i = inicio[v]; i < inicio[v + 1]; i++) {
+                    int p = out[destinos[i]];
+                    if (contagem[p] > contagem[melhor] && tamanho[p] < capacidade)
+                        melhor = p;
+                }
+                for (int i = inicio[v]; i < inicio[v + 1]; i++)
+                    contagem[out[destinos[i]]] = 0;
+                if (melhor != atual) {
+                    tamanho[atual]--;
+                    tamanho[melhor]++;
+                    out[v] = melhor;
+                    movidos++;
+                }
+            }
+            if (movidos == 0)
+                break;
+        }
+        return out;
+    }
+
+    /**
+     * Conta as arestas cujas extremidades ficam em fragmentos diferentes.
+     * 
+     * @param particao Fragmento de cada vértice.
+     * @return Número de arestas cortadas, contando cada par de vértices uma vez.
+     */
+    public long arestasCortadas(int[] particao) {
+        int[] inicio = this.ADJ.getInicio(), destinos = this.ADJ.getDestinos();
+        long out = 0;
+        for (int v = 0; v < particao.length; v++)
+            for (int i = inicio[v]; i < inicio[v + 1]; i++)
+                out += particao[v] != particao[destinos[i]] ? 1 : 0;
+        return out / 2;
+    }
+
+    /**
+     * Salva os fragmentos e o mapa de donos na pasta indicada.
+     * 
+     * @param particao Fragmento de cada vértice.
+     * @param pasta    Pasta de destino, criada se não existir.
+     * @return <code>true</code> se os arquivos foram salvos, <code>false</code> se
+     *         houve algum erro.
+     */
+    public Boolean salvar(int[] particao, Path pasta) {
+        String nome = this.GRAFO.getNome();
+        try {
+            Files.createDirectories(pasta);
+            Particionador.apagarFragmentos(pasta, nome);
+            for (int p = 0; p < this.K; p++)
+                try (EscritorGrafo escritor = Particionador.abrir(pasta.resolve(nome + "_" + p + ".csv"))) {
+                    escritor.escrever(this.GRAFO.ePonderado() ? '1' : '0')
+                            .escrever(this.GRAFO.eDirecionado() ? '1' : '0').escrever('\n');
+                    for (int v = 0; v < particao.length; v++)
+                        if (particao[v] == p)
+                            escritor.escrever(this.ADJ.getID(v)).escrever(';');
+                    escritor.escrever('\n');
+                    for (int v = 0; v < particao.length; v++)
+                        if (particao[v] == p)
+                            this.GRAFO.getVertice(this.ADJ.getID(v)).toFile(escritor);
+                }
+            try (EscritorGrafo escritor = Particionador.abrir(pasta.resolve(nome + ".part"))) {
+                for (int v = 0; v < particao.length; v++)
+                    escritor.escrever(this.ADJ.getID(v)).escrever('-').escrever(particao[v]).escrever(';');
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** getIds
+     * @return Identificadores dos vértices na ordem usada pelos vetores de partição. */
+    public int[] getIds() { return this.ADJ.getIds(); }
+
+    /**
+     * Calcula o fragmento de um identificador por espalhamento multiplicativo.
+     * 
+     * @param id Identificador do vértice.
+     * @param k  Número de fragmentos.
+     * @return Fragmento do vértice.
+     */
+    private static int espalhar(int id, int k) {
+        return (int) (((id * 0x9E3779B9L) & 0xFFFFFFFFL) * k >>> 32);
+    }
+
+    /**
+     * Apaga os fragmentos <code>&lt;nome&gt;_&lt;i&gt;.csv</code> de um
+     * particionamento anterior, que seriam lidos junto com os novos ao carregar a
+     * pasta.
+     * 
+     * @param pasta Pasta dos fragmentos.
+     * @param nome  Nome do grafo.
+     * @throws IOException se a pasta não puder ser listada ou algum arquivo não
+     *                     puder ser apagado.
+     */
+    private static void apagarFragmentos(Path pasta, String nome) throws IOException {
+        String prefixo = nome + "_";
+        try (DirectoryStream<Path> s = Files.newDirectoryStream(pasta)) {
+            for (Path caminho : s) {
+                String arquivo = caminho.getFileName().toString();
+                if (arquivo.length() > prefixo.length() + 4 && arquivo.startsWith(prefixo) && arquivo.endsWith(".csv")
+                        && arquivo.substring(prefixo.length(), arquivo.length() - 4).chars().allMatch(Character::isDigit))
+                    Files.delete(caminho);
+            }
+        }
+    }
+
+    /**
+     * Abre um arquivo para escrita, truncando-o se existir.
+     * 
+     * @param caminho Caminho do arquivo.
+     * @return Escritor do arquivo.
+     * @throws IOException se o arquivo não puder ser aberto.
+     */
+    private static EscritorGrafo abrir(Path caminho) throws IOException {
+        return new EscritorGrafo(FileChannel.open(caminho,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+}
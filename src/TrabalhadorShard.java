@@ -0,0 +1,293 @@
+/*
+ *  Copyright 2023 Henrique Almeida
+ * 
+ * This file is part of Projeto grafos.
+ * 
+ * Projeto grafos is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * Projeto grafos is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ * 
+ * You should have received a copy of the GNU
+ * General Public License along with Projeto grafos. If not, see
+ * <https://www.gnu.org/licenses/>.
+*/
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Processo trabalhador que mantém um fragmento do grafo salvo por
+ * {@link Particionador}.
+ * <br><br>
+ * Recebe comandos do {@link CoordenadorShards} pela entrada padrão, uma linha por
+ * lote, e responde cada comando com exatamente uma linha na saída padrão:
+ * <ul>
+ * <li><code>F nivel id...</code> visita os vértices ainda não visitados e
+ * responde <code>N id...</code> com os vizinhos deles;</li>
+ * <li><code>D</code> responde <code>D id dist...</code> com as distâncias da
+ * busca;</li>
+ * <li><code>C</code> inicia os componentes, <code>U id rotulo...</code> aplica
+ * rótulos recebidos; ambos respondem <code>R id rotulo...</code> com os rótulos a
+ * enviar para vértices de outros fragmentos;</li>
+ * <li><code>L</code> responde <code>L id rotulo...</code> com os rótulos
+ * finais;</li>
+ * <li><code>Z</code> reinicia a busca e <code>S</code> encerra o processo.</li>
+ * </ul>
+ * 
+ * @author henrish0
+ */
+public class TrabalhadorShard {
+    /** Identificadores dos vértices locais, em ordem crescente. */
+    private final int[] IDS;
+
+    /** Posição inicial dos vizinhos de cada vértice local. */
+    private final int[] INICIO;
+
+    /** Identificadores dos vizinhos, locais ou não. */
+    private final int[] DESTINOS;
+
+    /** Cabeçalho do arquivo do fragmento. */
+    private final String INFO;
+
+    /** Distância da busca de cada vértice local, <code>-1</code> se não visitado. */
+    private final int[] distancia;
+
+    /** Rótulo de componente de cada vértice local. */
+    private final int[] rotulo;
+
+    /**
+     * Construtor padrão. Lê o fragmento do arquivo.
+     * 
+     * @param caminho Caminho do arquivo do fragmento.
+     * @throws IOException se ocorrer erro de leitura.
+     */
+    public TrabalhadorShard(Path caminho) throws IOException {
+        try (FileChannel canal = FileChannel.open(caminho, StandardOpenOption.READ)) {
+            LeitorItens leitor = new LeitorItens(canal);
+            this.INFO = "" + (char) leitor.ler() + (char) leitor.ler();
+            leitor.ler();
+            int[] campo = new int[3];
+            BufferInt ids = new BufferInt(), arestas = new BufferInt();
+            do {
+                if (leitor.lerItem(campo) > 0)
+                    ids.add(campo[0]);
+            } while (leitor.getTerminador() == ';');
+            do {
+                if (leitor.lerItem(campo) > 1)
+                    arestas.add(campo[0]).add(campo[1]);
+            } while (leitor.getTerminador() == ';');
+            this.IDS = ids.copiar();
+            Arrays.sort(this.IDS);
+            this.INICIO = new int[this.IDS.length + 1];
+            this.DESTINOS = new int[arestas.tamanho / 2];
+            for (int i = 0; i < arestas.tamanho; i += 2)
+                this.INICIO[this.indice(arestas.dados[i]) + 1]++;
+            for (int v = 0; v < this.IDS.length; v++)
+                this.INICIO[v + 1] += this.INICIO[v];
+            int[] pos = Arrays.copyOf(this.INICIO, this.IDS.length);
+            for (int i = 0; i < arestas.tamanho; i += 2)
+                this.DESTINOS[pos[this.indice(arestas.dados[i])]++] = arestas.dados[i + 1];
+        }
+        this.distancia = new int[this.IDS.length];
+        this.rotulo = new int[this.IDS.length];
+        Arrays.fill(this.distancia, -1);
+    }
+
+    /**
+     * Método principal do processo trabalhador.
+     * 
+     * @param args Caminho do arquivo do fragmento.
+     * @throws IOException se ocorrer erro de leitura ou escrita.
+     */
+    public static void main(String[] args) throws IOException {
+        TrabalhadorShard t = new TrabalhadorShard(Path.of(args[0]));
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII), 1 << 16);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII), 1 << 16);
+        out.write("OK " + t.INFO + "\n");
+        out.flush();
+        for (String linha; (linha = in.readLine()) != null && !linha.startsWith("S");) {
+            int[] valores = TrabalhadorShard.numeros(linha);
+            switch (linha.charAt(0)) {
+                case 'F' -> t.visitar(valores, out);
+                case 'D' -> t.responder('D', t.distancia, true, out);
+                case 'C' -> t.iniciarComponentes(out);
+                case 'U' -> t.atualizarRotulos(valores, out);
+                case 'L' -> t.responder('L', t.rotulo, false, out);
+                case 'Z' -> {
+                    Arrays.fill(t.distancia, -1);
+                    out.write("Z");
+                }
+                default -> out.write("E");
+            }
+            out.write('\n');
+            out.flush();
+        }
+    }
+
+    /**
+     * Visita um nível da busca em largura.
+     * 
+     * @param args Nível seguido dos identificadores a visitar.
+     * @param out  Saída da resposta.
+     * @throws IOException se ocorrer erro de escrita.
+     */
+    private void visitar(int[] args, Writer out) throws IOException {
+        out.write('N');
+        for (int i = 1; i < args.length; i++) {
+            int v = this.indice(args[i]);
+            if (v < 0 || this.distancia[v] >= 0)
+                continue;
+            this.distancia[v] = args[0];
+            for (int j = this.INICIO[v]; j < this.INICIO[v + 1]; j++) {
+                int w = this.indice(this.DESTINOS[j]);
+                if (w < 0 || this.distancia[w] < 0) {
+                    out.write(' ');
+                    out.write(Integer.toString(this.DESTINOS[j]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Inicia os rótulos de componente com o próprio identificador e os propaga
+     * dentro do fragmento.
+     * 
+     * @param out Saída da resposta.
+     * @throws IOException se ocorrer erro de escrita.
+     */
+    private void iniciarComponentes(Writer out) throws IOException {
+        ArrayDeque<Integer> fila = new ArrayDeque<Integer>();
+        for (int v = 0; v < this.IDS.length; v++) {
+            this.rotulo[v] = this.IDS[v];
+            fila.add(v);
+        }
+        this.propagar(fila, new boolean[this.IDS.length], true, out);
+    }
+
+    /**
+     * Aplica rótulos recebidos de outros fragmentos e os propaga.
+     * 
+     * @param args Pares identificador e rótulo.
+     * @param out  Saída da resposta.
+     * @throws IOException se ocorrer erro de escrita.
+     */
+    private void atualizarRotulos(int[] args, Writer out) throws IOException {
+        ArrayDeque<Integer> fila = new ArrayDeque<Integer>();
+        boolean[] alterado = new boolean[this.IDS.length];
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            int v = this.indice(args[i]);
+            if (v >= 0 && args[i + 1] < this.rotulo[v]) {
+                this.rotulo[v] = args[i + 1];
+                alterado[v] = true;
+                fila.add(v);
+            }
+        }
+        this.propagar(fila, alterado, false, out);
+    }
+
+    /**
+     * Propaga o menor rótulo pelas arestas locais e responde com o menor rótulo a
+     * enviar para cada vizinho remoto dos vértices alterados.
+     * 
+     * @param fila     Vértices a processar.
+     * @param alterado Vértices cujo rótulo mudou.
+     * @param todos    Indica se todos os vértices devem ser considerados alterados.
+     * @param out      Saída da resposta.
+     * @throws IOException se ocorrer erro de escrita.
+     */
+    private void propagar(ArrayDeque<Integer> fila, boolean[] alterado, boolean todos, Writer out)
+            throws IOException {
+        while (!fila.isEmpty()) {
+            int v = fila.poll();
+            for (int j = this.INICIO[v]; j < this.INICIO[v + 1]; j++) {
+                int w = this.indice(this.DESTINOS[j]);
+                if (w >= 0 && this.rotulo[v] < this.rotulo[w]) {
+                    this.rotulo[w] = this.rotulo[v];
+                    alterado[w] = true;
+                    fila.add(w);
+                }
+            }
+        }
+        HashMap<Integer, Integer> mensagens = new HashMap<Integer, Integer>();
+        for (int v = 0; v < this.IDS.length; v++)
+            if (todos || alterado[v])
+                for (int j = this.INICIO[v]; j < this.INICIO[v + 1]; j++)
+                    if (this.indice(this.DESTINOS[j]) < 0)
+                        mensagens.merge(this.DESTINOS[j], this.rotulo[v], Math::min);
+        out.write('R');
+        for (var m : mensagens.entrySet())
+            out.write(" " + m.getKey() + " " + m.getValue());
+    }
+
+    /**
+     * Responde com pares identificador e valor.
+     * 
+     * @param tipo      Letra da resposta.
+     * @param valores   Valor de cada vértice local.
+     * @param visitados Indica se apenas valores não negativos devem ser enviados.
+     * @param out       Saída da resposta.
+     * @throws IOException se ocorrer erro de escrita.
+     */
+    private void responder(char tipo, int[] valores, boolean visitados, Writer out) throws IOException {
+        out.write(tipo);
+        for (int v = 0; v < this.IDS.length; v++)
+            if (!visitados || valores[v] >= 0)
+                out.write(" " + this.IDS[v] + " " + valores[v]);
+    }
+
+    /**
+     * Retorna o índice local de um identificador.
+     * 
+     * @param id Identificador do vértice.
+     * @return Índice local, negativo se o vértice pertence a outro fragmento.
+     */
+    private int indice(int id) {
+        return Arrays.binarySearch(this.IDS, id);
+    }
+
+    /**
+     * Lê os inteiros separados por espaço de uma linha do protocolo, ignorando o
+     * comando no início.
+     * 
+     * @param linha Linha recebida.
+     * @return Inteiros da linha.
+     */
+    static int[] numeros(String linha) {
+        BufferInt out = new BufferInt();
+        int valor = 0;
+        boolean negativo = false, digitos = false;
+        for (int i = 1; i <= linha.length(); i++) {
+            char c = i < linha.length() ? linha.charAt(i) : ' ';
+            if (c >= '0' && c <= '9') {
+                valor = valor * 10 + (c - '0');
+                digitos = true;
+            } else if (c == '-') {
+                negativo = true;
+            } else {
+                if (digitos)
+                    out.add(negativo ? -valor : valor);
+                valor = 0;
+                negativo = digitos = false;
+            }
+        }
+        return out.copiar();
+    }
+
+}
@@ -0,0 +1,297 @@
+/*
+ *  Copyright 2023 Henrique Almeida
+ * 
+ * This file is part of Projeto grafos.
+ * 
+ * Projeto grafos is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * Projeto grafos is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ * 
+ * You should have received a copy of the GNU
+ * General Public License along with Projeto grafos. If not, see
+ * <https://www.gnu.org/licenses/>.
+*/
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Contagem de triângulos e coeficientes de agrupamento.
+ * <br><br>
+ * Grafos direcionados são tratados pela sua versão não direcionada. A contagem
+ * exata orienta cada aresta do vértice de menor grau para o de maior grau e
+ * intersecta as listas ordenadas de vizinhos, em paralelo por vértice; assim
+ * cada triângulo é encontrado uma única vez. Para grafos muito grandes há
+ * estimativas por amostragem de caminhos de tamanho 2 (cunhas).
+ * 
+ * @see <a href="https://pt.wikipedia.org/wiki/Coeficiente_de_agrupamento">Coeficiente de agrupamento</a>
+ * @see AdjacenciaCompacta
+ * @author henrish0
+ */
+public class Triangulos {
+    /** Adjacência não direcionada do grafo. */
+    private final AdjacenciaCompacta ADJ;
+
+    /** Posição inicial dos vizinhos de maior ordem de cada vértice. */
+    private final int[] INICIO;
+
+    /** Vizinhos de maior ordem, ordenados por índice. */
+    private final int[] SUPERIORES;
+
+    /**
+     * Construtor padrão.
+     * 
+     * @param grafo Grafo analisado.
+     */
+    public Triangulos(Grafo grafo) {
+        AdjacenciaCompacta adj = new AdjacenciaCompacta(grafo);
+        this.ADJ = grafo.eDirecionado() ? adj.simetrica() : adj;
+        int n = this.ADJ.getN();
+        int[] inicio = this.ADJ.getInicio(), destinos = this.ADJ.getDestinos();
+        this.INICIO = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            int k = 0;
+            for (int i = inicio[v]; i < inicio[v + 1]; i++)
+                k += this.antes(v, destinos[i]) ? 1 : 0;
+            this.INICIO[v + 1] = this.INICIO[v] + k;
+        }
+        this.SUPERIORES = new int[this.INICIO[n]];
+        IntStream.range(0, n).parallel().forEach(v -> {
+            int k = this.INICIO[v];
+            for (int i = inicio[v]; i < inicio[v + 1]; i++)
+                if (this.antes(v, destinos[i]))
+                    this.SUPERIORES[k++] = destinos[i];
+        });
+    }
+
+    /**
+     * Conta exatamente os triângulos do grafo.
+     * 
+     * @return Número de triângulos.
+     */
+    public long contar() {
+        return IntStream.range(0, this.ADJ.getN()).parallel().mapToLong(v -> {
+            long t = 0;
+            for (int i = this.INICIO[v]; i < this.INICIO[v + 1]; i++) {
+                int u = this.SUPERIORES[i];
+                t += this.intersecao(this.INICIO[v], this.INICIO[v + 1], this.INICIO[u], this.INICIO[u + 1], null, v, u);
+            }
+            return t;
+        }).sum();
+    }
+
+    /**
+     * Conta os triângulos de que cada vértice participa.
+     * 
+     * @return Número de triângulos de cada vértice, na ordem de {@link #getIds()}.
+     */
+    public long[] contarPorVertice() {
+        AtomicLongArray t = new AtomicLongArray(this.ADJ.getN());
+        IntStream.range(0, this.ADJ.getN()).parallel().forEach(v -> {
+            for (int i = this.INICIO[v]; i < this.INICIO[v + 1]; i++) {
+                int u = this.SUPERIORES[i];
+                this.intersecao(this.INICIO[v], this.INICIO[v + 1], this.INICIO[u], this.INICIO[u + 1], t, v, u);
+            }
+        });
+        long[] out = new long[t.length()];
+        for (int v = 0; v < out.length; v++)
+            out[v] = t.get(v);
+        return out;
+    }
+
+    /**
+     * Calcula o coeficiente de agrupamento local de cada vértice: a fração dos
+     * pares de vizinhos que também são vizinhos entre si. Vértices com menos de
+     * dois vizinhos têm coeficiente <code>0</code>.
+     * 
+     * @return Coeficiente de cada vértice, na ordem de {@link #getIds()}.
+     */
+    public double[] coeficientesLocais() {
+        long[] t = this.contarPorVertice();
+        double[] out = new double[t.length];
+        for (int v = 0; v < out.length; v++)
+            out[v] = Triangulos.coeficiente(t[v], this.ADJ.getGrau(v));
+        return out;
+    }
+
+    /**
+     * Calcula o coeficiente de agrupamento local de um único vértice.
+     * 
+     * @param id Identificador do vértice.
+     * @return Coeficiente do vértice, <code>null</code> se o vértice não existe.
+     */
+    public Double coeficienteLocal(Integer id) {
+        int v = this.ADJ.indice(id);
+        if (v < 0)
+            return null;
+        int[] inicio = this.ADJ.getInicio(), destinos = this.ADJ.getDestinos();
+        long t = 0;
+        for (int i = inicio[v]; i < inicio[v + 1]; i++)
+            for (int j = i + 1; j < inicio[v + 1]; j++)
+                t += this.ADJ.haAresta(destinos[i], destinos[j]) ? 1 : 0;
+        return Triangulos.coeficiente(t, this.ADJ.getGrau(v));
+    }
+
+    /**
+     * Calcula o coeficiente de agrupamento médio dos vértices.
+     * 
+     * @return Média dos coeficientes locais, <code>0</code> se o grafo é vazio.
+     */
+    public double coeficienteMedio() {
+        return Arrays.stream(this.coeficientesLocais()).average().orElse(0);
+    }
+
+    /**
+     * Estima o número de triângulos amostrando cunhas (pares de arestas com um
+     * vértice em comum) com probabilidade uniforme. A fração de cunhas fechadas
+     * estima a transitividade, e cada triângulo fecha três cunhas.
+     * 
+     * @param amostras Número de cunhas amostradas.
+     * @return Estimativa do número de triângulos.
+     */
+    public double estimarTriangulos(int amostras) {
+        int n = this.ADJ.getN();
+        long[] cunhas = new long[n + 1];
+        for (int v = 0; v < n; v++)
+            cunhas[v + 1] = cunhas[v] + Triangulos.pares(this.ADJ.getGrau(v));
+        long total = cunhas[n];
+        if (total == 0 || amostras < 1)
+            return 0;
+        long fechadas = IntStream.range(0, amostras).parallel().filter(i -> {
+            long r = ThreadLocalRandom.current().nextLong(total);
+            // Procura o vértice v tal que cunhas[v] <= r < cunhas[v + 1]
+            int v = Arrays.binarySearch(cunhas, r);
+            v = v >= 0 ? v : -v - 2;
+            while (cunhas[v + 1] <= r)
+                v++;
+            return this.cunhaFechada(v);
+        }).count();
+        return (double) fechadas / amostras * total / 3;
+    }
+
+    /**
+     * Estima o coeficiente de agrupamento local de cada vértice amostrando até
+     * <code>amostras</code> pares de vizinhos por vértice. Vértices com poucos
+     * pares são calculados de forma exata.
+     * 
+     * @param amostras Número máximo de pares amostrados por vértice.
+     * @return Estimativa do coeficiente de cada vértice, na ordem de
+     *         {@link #getIds()}.
+     */
+    public double[] estimarCoeficientesLocais(int amostras) {
+        int[] inicio = this.ADJ.getInicio(), destinos = this.ADJ.getDestinos();
+        double[] out = new double[this.ADJ.getN()];
+        IntStream.range(0, out.length).parallel().forEach(v -> {
+            int grau = this.ADJ.getGrau(v);
+            if (Triangulos.pares(grau) <= amostras || amostras < 1) {
+                long t = 0;
+                for (int i = inicio[v]; i < inicio[v + 1]; i++)
+                    for (int j = i + 1; j < inicio[v + 1]; j++)
+                        t += this.ADJ.haAresta(destinos[i], destinos[j]) ? 1 : 0;
+                out[v] = Triangulos.coeficiente(t, grau);
+            } else {
+                int fechadas = 0;
+                for (int k = 0; k < amostras; k++)
+                    fechadas += this.cunhaFechada(v) ? 1 : 0;
+                out[v] = (double) fechadas / amostras;
+            }
+        });
+        return out;
+    }
+
+    /** getIds
+     * @return Identificadores dos vértices na ordem usada pelos vetores de resultado. */
+    public int[] getIds() { return this.ADJ.getIds(); }
+
+    /**
+     * Sorteia dois vizinhos distintos de <code>v</code> e verifica se são
+     * vizinhos entre si.
+     * 
+     * @param v Índice do vértice central, com grau de pelo menos 2.
+     * @return <code>true</code> se a cunha sorteada é fechada.
+     */
+    private boolean cunhaFechada(int v) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int inicio = this.ADJ.getInicio()[v], grau = this.ADJ.getGrau(v);
+        int a = random.nextInt(grau), b = random.nextInt(grau - 1);
+        b += b >= a ? 1 : 0;
+        return this.ADJ.haAresta(this.ADJ.getDestinos()[inicio + a], this.ADJ.getDestinos()[inicio + b]);
+    }
+
+    /**
+     * Intersecta duas listas ordenadas de vizinhos superiores.
+     * 
+     * @param i         Início da primeira lista.
+     * @param fimI      Fim da primeira lista.
+     * @param j         Início da segunda lista.
+     * @param fimJ      Fim da segunda lista.
+     * @param contagens Contagem por vértice a ser incrementada, ou <code>null</code>.
+     * @param v         Primeiro vértice do triângulo.
+     * @param u         Segundo vértice do triângulo.
+     * @return Tamanho da interseção.
+     */
+    private long intersecao(int i, int fimI, int j, int fimJ, AtomicLongArray contagens, int v, int u) {
+        long out = 0;
+        while (i < fimI && j < fimJ) {
+            int a = this.SUPERIORES[i], b = this.SUPERIORES[j];
+            if (a < b)
+                i++;
+            else if (a > b)
+                j++;
+            else {
+                out++;
+                if (contagens != null) {
+                    contagens.incrementAndGet(v);
+                    contagens.incrementAndGet(u);
+                    contagens.incrementAndGet(a);
+                }
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Ordem total usada para orientar as arestas: grau crescente, com empate
+     * decidido pelo índice.
+     * 
+     * @param v Primeiro vértice.
+     * @param u Segundo vértice.
+     * @return <code>true</code> se <code>v</code> vem antes de <code>u</code>.
+     */
+    private boolean antes(int v, int u) {
+        int gv = this.ADJ.getGrau(v), gu = this.ADJ.getGrau(u);
+        return gv < gu || gv == gu && v < u;
+    }
+
+    /**
+     * Calcula o coeficiente local a partir do número de triângulos e do grau.
+     * 
+     * @param triangulos Triângulos do vértice.
+     * @param grau       Grau do vértice.
+     * @return Coeficiente local.
+     */
+    private static double coeficiente(long triangulos, int grau) {
+        return grau < 2 ? 0 : (double) triangulos / Triangulos.pares(grau);
+    }
+
+    /**
+     * Calcula o número de pares de vizinhos de um vértice.
+     * 
+     * @param grau Grau do vértice.
+     * @return <code>grau * (grau - 1) / 2</code>.
+     */
+    private static long pares(int grau) {
+        return (long) grau * (grau - 1) / 2;
+    }
+
+}
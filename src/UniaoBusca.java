@@ -0,0 +1,176 @@
+/*
+ *  Copyright 2023 Henrique Almeida
+ * 
+ * This file is part of Projeto grafos.
+ * 
+ * Projeto grafos is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option) any
+ * later version.
+ * 
+ * Projeto grafos is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ * 
+ * You should have received a copy of the GNU
+ * General Public License along with Projeto grafos. If not, see
+ * <https://www.gnu.org/licenses/>.
+*/
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Estrutura de união e busca (conjuntos disjuntos) sem travas, sobre índices
+ * densos.
+ * <br><br>
+ * Cada posição guarda o pai e o posto (rank) do elemento em um único
+ * <code>long</code>, alterado por <code>compareAndSet</code>. Como pai e posto
+ * mudam juntos, duas uniões concorrentes nunca formam ciclos. As buscas
+ * encurtam o caminho pela metade (path halving). {@link #unir(int, int)},
+ * {@link #buscar(int)} e {@link #conectados(int, int)} podem ser chamados por
+ * várias threads ao mesmo tempo; {@link #add()} não.
+ * 
+ * @see <a href="https://pt.wikipedia.org/wiki/Estrutura_de_dados_para_conjuntos_disjuntos">Conjuntos disjuntos</a>
+ * @author henrish0
+ */
+public class UniaoBusca {
+    /** Pai (32 bits baixos) e posto (32 bits altos) de cada elemento. */
+    private AtomicLongArray nos;
+
+    /** Quantidade de elementos. */
+    private int tamanho;
+
+    /** Quantidade de conjuntos disjuntos. */
+    private final AtomicInteger CONJUNTOS;
+
+    /**
+     * Construtor padrão. Cada elemento começa em seu próprio conjunto.
+     * 
+     * @param n Quantidade inicial de elementos.
+     */
+    public UniaoBusca(int n) {
+        this.nos = new AtomicLongArray(Math.max(n, 16));
+        for (int i = 0; i < n; i++)
+            this.nos.set(i, i);
+        this.tamanho = n;
+        this.CONJUNTOS = new AtomicInteger(n);
+    }
+
+    /**
+     * Adiciona um elemento em um conjunto próprio.
+     * 
+     * @return Índice do novo elemento.
+     */
+    public int add() {
+        if (this.tamanho == this.nos.length()) {
+            AtomicLongArray novo = new AtomicLongArray(this.tamanho * 2);
+            for (int i = 0; i < this.tamanho; i++)
+                novo.set(i, this.nos.get(i));
+            this.nos = novo;
+        }
+        this.nos.set(this.tamanho, this.tamanho);
+        this.CONJUNTOS.incrementAndGet();
+        return this.tamanho++;
+    }
+
+    /**
+     * Retorna o representante do conjunto de um elemento.
+     * 
+     * @param x Índice do elemento.
+     * @return Índice do representante.
+     */
+    public int buscar(int x) {
+        while (true) {
+            long nx = this.nos.get(x);
+            int p = UniaoBusca.pai(nx);
+            if (p == x)
+                return x;
+            int avo = UniaoBusca.pai(this.nos.get(p));
+            if (p != avo)
+                this.nos.compareAndSet(x, nx, UniaoBusca.no(avo, UniaoBusca.posto(nx)));
+            x = avo;
+        }
+    }
+
+    /**
+     * Une os conjuntos de dois elementos, pendurando a raiz de menor posto na de
+     * maior posto.
+     * 
+     * @param a Índice do primeiro elemento.
+     * @param b Índice do segundo elemento.
+     * @return <code>true</code> se os conjuntos foram unidos, <code>false</code>
+     *         se já eram o mesmo conjunto.
+     */
+    public boolean unir(int a, int b) {
+        while (true) {
+            a = this.buscar(a);
+            b = this.buscar(b);
+            if (a == b)
+                return false;
+            long na = this.nos.get(a), nb = this.nos.get(b);
+            int pa = UniaoBusca.posto(na), pb = UniaoBusca.posto(nb);
+            if (UniaoBusca.pai(na) != a || UniaoBusca.pai(nb) != b)
+                continue;
+            if (pa > pb || pa == pb && a > b) {
+                int t = a;
+                a = b;
+                b = t;
+                long tn = na;
+                na = nb;
+                nb = tn;
+            }
+            // a tem o menor posto (ou o menor índice no empate) e fica abaixo de b
+            if (this.nos.compareAndSet(a, na, UniaoBusca.no(b, UniaoBusca.posto(na)))) {
+                if (UniaoBusca.posto(na) == UniaoBusca.posto(nb))
+                    this.nos.compareAndSet(b, nb, UniaoBusca.no(b, UniaoBusca.posto(nb) + 1));
+                this.CONJUNTOS.decrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Verifica se dois elementos estão no mesmo conjunto.
+     * 
+     * @param a Índice do primeiro elemento.
+     * @param b Índice do segundo elemento.
+     * @return <code>true</code> se estão no mesmo conjunto, <code>false</code>
+     *         caso contrário.
+     */
+    public boolean conectados(int a, int b) {
+        while (true) {
+            a = this.buscar(a);
+            b = this.buscar(b);
+            if (a == b)
+                return true;
+            // Se a ainda é raiz, os conjuntos eram distintos no momento da leitura
+            if (UniaoBusca.pai(this.nos.get(a)) == a)
+                return false;
+        }
+    }
+
+    // @formatter:off
+    /** getTamanho
+     * @return Quantidade de elementos. */
+    public int getTamanho() { return this.tamanho; }
+    /** getConjuntos
+     * @return Quantidade de conjuntos disjuntos. */
+    public int getConjuntos() { return this.CONJUNTOS.get(); }
+
+    /** pai
+     * @param no Posição codificada.
+     * @return Pai do elemento. */
+    private static int pai(long no) { return (int) no; }
+    /** posto
+     * @param no Posição codificada.
+     * @return Posto do elemento. */
+    private static int posto(long no) { return (int) (no >>> 32); }
+    /** no
+     * @param pai   Pai do elemento.
+     * @param posto Posto do elemento.
+     * @return Posição codificada. */
+    private static long no(int pai, int posto) { return (long) posto << 32 | pai & 0xFFFFFFFFL; }
+
+}
@@ -18,6 +18,7 @@
  * <https://www.gnu.org/licenses/>.
 */
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.TreeMap;
 
@@ -37,6 +38,9 @@ public class Vertice implements Comparable<Vertice> {
     /** Indica se o vértice já foi visitado por um algoritmo. */
     private Boolean visitado;
 
+    /** Índice denso do vértice, usado por estruturas auxiliares do grafo. */
+    private int indice;
+
     /**
      * Construtor padrão.
      * 
@@ -83,17 +87,19 @@ public class Vertice implements Comparable<Vertice> {
     }
 
     /**
-     * Retorna uma representação das arestas do vértice para ser salva em arquivo.
+     * Escreve as arestas do vértice no formato de arquivo.
      * 
-     * @return String com as arestas do vértice.
+     * @param escritor Escritor onde as arestas serão escritas.
+     * @throws IOException se ocorrer erro de escrita.
      */
-    public String toFile() {
-        StringBuilder sb = new StringBuilder();
-        arestas.values().forEach(a -> {
+    public void toFile(EscritorGrafo escritor) throws IOException {
+        for (IAresta a : this.arestas.values()) {
             Integer peso = a.getPeso();
-            sb.append(this.ID).append("-").append(a.getDestino().getID()).append(peso != null ? "-" + peso : "").append(";");
-        });
-        return new String(sb);
+            escritor.escrever(this.ID).escrever('-').escrever(a.getDestino().getID());
+            if (peso != null)
+                escritor.escrever('-').escrever(peso);
+            escritor.escrever(';');
+        }
     }
 
     /** getID
@@ -113,5 +119,11 @@ public class Vertice implements Comparable<Vertice> {
      * @param visitado Indica se o vértice já foi visitado por um algoritmo.
      * @return O próprio vértice para encadeamento de chamadas. */
     public Vertice setVisitado(Boolean visitado) { this.visitado = visitado; return this; }
+    /** getIndice
+     * @return Índice denso do vértice. */
+    int getIndice() { return this.indice; }
+    /** setIndice
+     * @param indice Índice denso do vértice. */
+    void setIndice(int indice) { this.indice = indice; }
 
 }